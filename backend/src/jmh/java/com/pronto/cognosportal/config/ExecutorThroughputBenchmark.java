@@ -0,0 +1,87 @@
+package com.pronto.cognosportal.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tasks per second through the fleet poll executor of each execution mode, as configured by
+ * {@link AsyncConfig}: a ThreadPoolTaskExecutor with concurrency threads and an unbounded
+ * queue (platform), or a {@link BoundedVirtualThreadExecutor} limited to concurrency tasks
+ * (virtual). Each invocation submits a burst of tasks, as a fleet-wide poll does, and waits
+ * for all of them.
+ *
+ * Tasks either return at once, measuring the executors' own overhead, or block for
+ * blockMillis like a call to a Cognos server. Blocked tasks bound the throughput at
+ * concurrency / blockMillis in both modes; what differs is the cost of handing them out and
+ * of parking, and how many concurrency can be raised to before threads become the limit.
+ *
+ * The virtual executor needs Java 21: run with a Java 21 JVM and -Pjava21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ExecutorThroughputBenchmark.TASKS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ExecutorThroughputBenchmark {
+
+    static final int TASKS = 2000;
+
+    @Param({AsyncConfig.MODE_PLATFORM, AsyncConfig.MODE_VIRTUAL})
+    private String mode;
+
+    @Param({"10", "200", "2000"})
+    private int concurrency;
+
+    @Param({"0", "5"})
+    private int blockMillis;
+
+    private Executor executor;
+    private ThreadPoolTaskExecutor threadPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (AsyncConfig.MODE_VIRTUAL.equals(mode)) {
+            executor = new BoundedVirtualThreadExecutor("bench-vt-", concurrency);
+            return;
+        }
+        threadPool = new ThreadPoolTaskExecutor();
+        threadPool.setCorePoolSize(concurrency);
+        threadPool.setMaxPoolSize(concurrency);
+        threadPool.setThreadNamePrefix("bench-");
+        threadPool.initialize();
+        executor = threadPool;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (threadPool != null) {
+            threadPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    if (blockMillis > 0) {
+                        // Blocks like a remote call; a virtual thread gives up its carrier meanwhile
+                        Thread.sleep(blockMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,64 @@
+package com.pronto.cognosportal.dto;
+
+import com.pronto.cognosportal.model.CognosServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping done for every server in the fleet listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class ServerDTOBenchmark {
+
+    @Param({"100", "1000"})
+    private int servers;
+
+    private List<CognosServer> fleet;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 0, 0);
+        fleet = new ArrayList<>(servers);
+        for (int i = 0; i < servers; i++) {
+            fleet.add(CognosServer.builder()
+                    .id((long) i)
+                    .serverName("server-" + i)
+                    .baseUrl("https://cognos-" + i + ".example.com")
+                    .apiKeyEncrypted("encrypted-" + i)
+                    .prontoDebtorCode("D" + i)
+                    .prontoXiVersion(i % 2 == 0 ? "760" : "770")
+                    .enrollmentDate(now)
+                    .lastPollTime(now.plusMinutes(i))
+                    .pollStatus(CognosServer.PollStatus.SUCCESS)
+                    .isActive(true)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<ServerDTO> fromEntity() {
+        List<ServerDTO> dtos = new ArrayList<>(fleet.size());
+        for (CognosServer server : fleet) {
+            dtos.add(ServerDTO.fromEntity(server));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<ServerDTO> fromEntityWithCircuit() {
+        List<ServerDTO> dtos = new ArrayList<>(fleet.size());
+        for (CognosServer server : fleet) {
+            dtos.add(ServerDTO.fromEntity(server, "CLOSED", 0, null));
+        }
+        return dtos;
+    }
+}
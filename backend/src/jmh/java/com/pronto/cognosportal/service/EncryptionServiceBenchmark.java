@@ -0,0 +1,43 @@
+package com.pronto.cognosportal.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API key encryption, and the decryption done before every call to a Cognos server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class EncryptionServiceBenchmark {
+
+    private EncryptionService encryptionService;
+    private String apiKey;
+    private String encryptedApiKey;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService();
+        Field field = ReflectionUtils.findField(EncryptionService.class, "encryptionKey");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, encryptionService, "benchmark-encryption-secret");
+        apiKey = "cognos-api-key-0123456789abcdef0123456789abcdef";
+        encryptedApiKey = encryptionService.encrypt(apiKey);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(apiKey);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(encryptedApiKey);
+    }
+}
@@ -0,0 +1,190 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.ContentInventory;
+import com.pronto.cognosportal.model.User;
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second when a 100k item inventory is written to server_content_inventory, as a
+ * full sync does:
+ *
+ * - before: identity ids, so every row is its own INSERT and round trip, and all rows stay
+ *   in the persistence context until commit;
+ * - after: ids from the pooled sequence, inserts sent in JDBC batches of 50 and the
+ *   persistence context flushed and cleared every chunk, as {@link InventorySyncService} does.
+ *
+ * Runs against an in-memory H2 database by default, which has no network round trips and
+ * so understates the difference. To measure against PostgreSQL, point it at a scratch
+ * database (its tables are created and dropped):
+ * -Djmh.args="InventoryInsertBenchmark -jvmArgsAppend -Dbench.db.url=jdbc:postgresql://host/db?reWriteBatchedInserts=true
+ * -Dbench.db.user=... -Dbench.db.password=..."
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(InventoryInsertBenchmark.ROWS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class InventoryInsertBenchmark {
+
+    static final int ROWS = 100_000;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int BATCH_SIZE = 50;
+    private static final long SEED = 42L;
+
+    @Param({"before", "after"})
+    private String path;
+
+    private SessionFactory sessionFactory;
+    private Long serverId;
+    private String[] names;
+    private String[] versions;
+    private String[] paths;
+    private ContentInventory.ContentType[] types;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(CognosServer.class)
+                .addAnnotatedClass(ContentInventory.class)
+                .addAnnotatedClass(IdentityContentInventory.class)
+                .setProperty(AvailableSettings.URL, System.getProperty("bench.db.url",
+                        "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"))
+                .setProperty(AvailableSettings.USER, System.getProperty("bench.db.user", "sa"))
+                .setProperty(AvailableSettings.PASS, System.getProperty("bench.db.password", ""))
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        if ("after".equals(path)) {
+            configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+                    .setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        }
+        sessionFactory = configuration.buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            CognosServer server = CognosServer.builder()
+                    .serverName("bench")
+                    .baseUrl("http://localhost")
+                    .apiKeyEncrypted("-")
+                    .prontoDebtorCode("BENCH")
+                    .prontoXiVersion("760")
+                    .build();
+            session.persist(server);
+            serverId = server.getId();
+        });
+
+        Random random = new Random(SEED);
+        ContentInventory.ContentType[] allTypes = ContentInventory.ContentType.values();
+        names = new String[ROWS];
+        versions = new String[ROWS];
+        paths = new String[ROWS];
+        types = new ContentInventory.ContentType[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            types[i] = allTypes[random.nextInt(allTypes.length)];
+            names[i] = types[i] + " item " + i;
+            versions[i] = random.nextInt(5) + "." + random.nextInt(10) + "." + random.nextInt(10);
+            paths[i] = "/content/folder-" + random.nextInt(50) + "/item-" + i;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearRows() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from ContentInventory").executeUpdate();
+            session.createMutationQuery("delete from IdentityContentInventory").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void insertInventory() {
+        LocalDateTime syncTime = LocalDateTime.now();
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            CognosServer server = session.getReference(CognosServer.class, serverId);
+            if ("before".equals(path)) {
+                for (int i = 0; i < ROWS; i++) {
+                    session.persist(new IdentityContentInventory(server, types[i], names[i], versions[i],
+                            paths[i], syncTime));
+                }
+            } else {
+                for (int i = 0; i < ROWS; i++) {
+                    session.persist(ContentInventory.builder()
+                            .server(server)
+                            .contentType(types[i])
+                            .contentName(names[i])
+                            .contentVersion(versions[i])
+                            .contentPath(paths[i])
+                            .lastUpdated(syncTime)
+                            .build());
+                    if ((i + 1) % CHUNK_SIZE == 0) {
+                        session.flush();
+                        session.clear();
+                        server = session.getReference(CognosServer.class, serverId);
+                    }
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    /**
+     * server_content_inventory as mapped before ids came from a pooled sequence.
+     */
+    @Entity(name = "IdentityContentInventory")
+    @Table(name = "identity_content_inventory")
+    public static class IdentityContentInventory {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "server_id")
+        private CognosServer server;
+
+        @Column(name = "content_type", nullable = false, length = 50)
+        @Enumerated(EnumType.STRING)
+        private ContentInventory.ContentType contentType;
+
+        @Column(name = "content_name", nullable = false)
+        private String contentName;
+
+        @Column(name = "content_version", length = 50)
+        private String contentVersion;
+
+        @Column(name = "content_path", nullable = false, columnDefinition = "TEXT")
+        private String contentPath;
+
+        @Column(name = "last_updated")
+        private LocalDateTime lastUpdated;
+
+        protected IdentityContentInventory() {
+        }
+
+        IdentityContentInventory(CognosServer server, ContentInventory.ContentType contentType, String contentName,
+                                 String contentVersion, String contentPath, LocalDateTime lastUpdated) {
+            this.server = server;
+            this.contentType = contentType;
+            this.contentName = contentName;
+            this.contentVersion = contentVersion;
+            this.contentPath = contentPath;
+            this.lastUpdated = lastUpdated;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pronto.cognosportal.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pronto.cognosportal.dto.CognosContentItem;
+import com.pronto.cognosportal.model.ContentInventory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a content inventory response as done by a poll: streamed in chunks,
+ * bound to a map and converted, and the per-section counts taken from the map.
+ * The response is generated from a fixed seed so every run parses the same bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class InventoryParsingBenchmark {
+
+    private static final long SEED = 42L;
+    private static final int CHUNK_SIZE = 500;
+
+    @Param({"100", "10000"})
+    private int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+    private Map<String, Object> response;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(SEED);
+        List<String> sections = new ArrayList<>(CognosInventoryParser.RESPONSE_SECTIONS.keySet());
+        sections.sort(null);
+
+        Map<String, Object> inventory = new HashMap<>();
+        sections.forEach(section -> inventory.put(section, new ArrayList<Map<String, String>>()));
+        for (int i = 0; i < items; i++) {
+            String section = sections.get(random.nextInt(sections.size()));
+            @SuppressWarnings("unchecked")
+            List<Map<String, String>> list = (List<Map<String, String>>) inventory.get(section);
+            list.add(Map.of(
+                    "name", section + " item " + i,
+                    "version", random.nextInt(5) + "." + random.nextInt(10) + "." + random.nextInt(10),
+                    "path", "/" + section + "/folder-" + random.nextInt(50) + "/item-" + i));
+        }
+
+        body = objectMapper.writeValueAsBytes(inventory);
+        response = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {});
+    }
+
+    @Benchmark
+    public Map<ContentInventory.ContentType, Integer> streamParse(Blackhole blackhole) throws IOException {
+        return CognosInventoryParser.parse(new ByteArrayInputStream(body), CHUNK_SIZE, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<CognosContentItem> bindAndConvert() throws IOException {
+        Map<String, Object> parsed = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {});
+        return CognosInventoryParser.fromResponse(parsed);
+    }
+
+    @Benchmark
+    public int getCountFromResponse() {
+        int total = 0;
+        for (String section : CognosInventoryParser.RESPONSE_SECTIONS.keySet()) {
+            total += PollingService.getCountFromResponse(response, section);
+        }
+        return total;
+    }
+}
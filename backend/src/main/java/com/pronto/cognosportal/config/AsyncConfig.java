@@ -1,15 +1,22 @@
 package com.pronto.cognosportal.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 @Configuration
 public class AsyncConfig implements AsyncConfigurer {
 
+    public static final String MODE_PLATFORM = "platform";
+    public static final String MODE_VIRTUAL = "virtual";
+
     @Value("${polling.async.core-pool-size:5}")
     private int corePoolSize;
 
@@ -19,8 +26,32 @@ public class AsyncConfig implements AsyncConfigurer {
     @Value("${polling.async.queue-capacity:100}")
     private int queueCapacity;
 
+    @Value("${polling.async.virtual-max-concurrency:1000}")
+    private int virtualMaxConcurrency;
+
+    @Value("${polling.fleet.max-concurrency:10}")
+    private int fleetMaxConcurrency;
+
+    @Value("${jobs.worker.concurrency:10}")
+    private int jobWorkerConcurrency;
+
+    @Value("${polling.execution.mode:" + MODE_PLATFORM + "}")
+    private String executionMode;
+
     @Override
     public Executor getAsyncExecutor() {
+        return asyncExecutor();
+    }
+
+    /**
+     * Runs @Async methods. Declared as a bean so it is instrumented like the other executors.
+     */
+    @Bean(name = "asyncExecutor")
+    public Executor asyncExecutor() {
+        if (isVirtualMode()) {
+            return new BoundedVirtualThreadExecutor("async-vt-", virtualMaxConcurrency);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(maxPoolSize);
@@ -29,4 +60,67 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Dedicated executor for fleet-wide polls, limited to polling.fleet.max-concurrency
+     * polls at a time. In platform mode the pool size is the limit and the queue is
+     * unbounded so a full fleet can be submitted without rejections; in virtual mode
+     * each poll gets a virtual thread and a semaphore enforces the limit.
+     */
+    @Bean(name = "fleetPollExecutor")
+    public Executor fleetPollExecutor() {
+        if (isVirtualMode()) {
+            return new BoundedVirtualThreadExecutor("fleet-poll-vt-", fleetMaxConcurrency);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(fleetMaxConcurrency);
+        executor.setMaxPoolSize(fleetMaxConcurrency);
+        executor.setThreadNamePrefix("fleet-poll-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs jobs claimed from the job queue, sized to jobs.worker.concurrency. The job
+     * worker never claims more jobs than it has free slots, so nothing waits in the queue.
+     */
+    @Bean(name = "jobExecutor")
+    public Executor jobExecutor() {
+        if (isVirtualMode()) {
+            return new BoundedVirtualThreadExecutor("job-vt-", Math.max(1, jobWorkerConcurrency));
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, jobWorkerConcurrency));
+        executor.setMaxPoolSize(Math.max(1, jobWorkerConcurrency));
+        executor.setThreadNamePrefix("job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Spring Boot publishes executor.* meters for the thread pool executors above; this adds
+     * executor.active and executor.queued, under the same bean name tag, for the virtual
+     * thread executors used in virtual mode.
+     */
+    @Bean
+    public MeterBinder virtualExecutorMetrics(Map<String, Executor> executors) {
+        return registry -> executors.forEach((name, executor) -> {
+            if (executor instanceof BoundedVirtualThreadExecutor virtual) {
+                Gauge.builder("executor.active", virtual, BoundedVirtualThreadExecutor::getActiveCount)
+                        .description("The approximate number of threads that are actively executing tasks")
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("executor.queued", virtual, BoundedVirtualThreadExecutor::getQueuedCount)
+                        .description("The approximate number of tasks that are queued for execution")
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+
+    private boolean isVirtualMode() {
+        return MODE_VIRTUAL.equalsIgnoreCase(executionMode);
+    }
 }
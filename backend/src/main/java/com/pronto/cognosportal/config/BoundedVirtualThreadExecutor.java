@@ -0,0 +1,56 @@
+package com.pronto.cognosportal.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs every task on its own virtual thread and limits how many run at once with a
+ * semaphore. Submission never blocks or rejects; tasks over the limit park cheaply
+ * on the semaphore until a permit frees up.
+ */
+public class BoundedVirtualThreadExecutor implements TaskExecutor {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual thread execution mode requires Java 21 or later, running on "
+                    + Runtime.version());
+        }
+        this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.delegate.setVirtualThreads(true);
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Tasks started on a virtual thread but still waiting for a permit.
+     */
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,154 @@
+package com.pronto.cognosportal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HTTP client used for all calls to Cognos servers: a non-blocking Apache HttpClient 5
+ * client backing the CompletableFuture API of CognosAsyncApiService. Connections are pooled
+ * per host and kept alive between calls, so polls and deploys to the same server reuse them
+ * instead of opening a new TCP/TLS connection each time. Every call, blocking or not, goes
+ * through this one pool, so max-connections-per-host is the limit on connections to a server.
+ *
+ * HTTP/1.1 by default; with cognos.api.http.http2 enabled HTTP/2 is negotiated over TLS,
+ * multiplexing requests over a connection to servers that support it.
+ *
+ * Every request is timed as cognos.http.client.requests by method, endpoint (the path from
+ * /api on, without query) and status, and the pool is exposed as httpcomponents.httpclient.pool
+ * meters.
+ */
+@Component
+@Slf4j
+public class CognosHttpClient {
+
+    private final PoolingAsyncClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final boolean http2;
+    private final MeterRegistry meterRegistry;
+
+    public CognosHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${cognos.api.http.connect-timeout-seconds:10}") long connectTimeoutSeconds,
+            @Value("${cognos.api.http.read-timeout-seconds:120}") long readTimeoutSeconds,
+            @Value("${cognos.api.http.connection-request-timeout-seconds:30}") long connectionRequestTimeoutSeconds,
+            @Value("${cognos.api.http.max-connections-total:200}") int maxConnectionsTotal,
+            @Value("${cognos.api.http.max-connections-per-host:10}") int maxConnectionsPerHost,
+            @Value("${cognos.api.http.keep-alive-seconds:60}") long keepAliveSeconds,
+            @Value("${cognos.api.http.connection-ttl-seconds:300}") long connectionTtlSeconds,
+            @Value("${cognos.api.http.http2:false}") boolean http2) {
+        this.http2 = http2;
+        this.meterRegistry = meterRegistry;
+
+        this.connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnectionsTotal)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+                        .setSocketTimeout(Timeout.ofSeconds(readTimeoutSeconds))
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(http2 ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
+                        .build())
+                .build();
+        this.asyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(connectionRequestTimeoutSeconds))
+                        .setResponseTimeout(Timeout.ofSeconds(readTimeoutSeconds))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(keepAliveSeconds))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds))
+                .build();
+        this.asyncClient.start();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "cognos").bindTo(meterRegistry);
+        log.info("Cognos HTTP client: pooled Apache async HttpClient (max {} connections, {} per host{})",
+                maxConnectionsTotal, maxConnectionsPerHost, http2 ? ", HTTP/2 over TLS" : "");
+    }
+
+    public CloseableHttpAsyncClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    /**
+     * Current connection pool usage: leased (in use), available (idle, kept alive),
+     * pending (waiting for a connection) and max.
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("client", http2 ? "apache-async-http2" : "apache-async");
+        PoolStats total = connectionManager.getTotalStats();
+        stats.put("leased", total.getLeased());
+        stats.put("available", total.getAvailable());
+        stats.put("pending", total.getPending());
+        stats.put("max", total.getMax());
+        stats.put("routes", connectionManager.getRoutes().size());
+        return stats;
+    }
+
+    /**
+     * Records one request in cognos.http.client.requests. The status is the HTTP status
+     * code, or TIMEOUT, CANCELLED or IO_ERROR when no response was received.
+     */
+    public void recordRequest(String method, URI uri, String status, long durationNanos) {
+        Timer.builder("cognos.http.client.requests")
+                .description("Requests to Cognos servers")
+                .tag("method", method)
+                .tag("endpoint", endpointOf(uri))
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static String statusOf(Throwable failure) {
+        if (failure instanceof TimeoutException || failure instanceof SocketTimeoutException) {
+            return "TIMEOUT";
+        }
+        if (failure instanceof CancellationException) {
+            return "CANCELLED";
+        }
+        return "IO_ERROR";
+    }
+
+    /**
+     * Strips the server's base URL and the query, so the tag does not grow with the fleet.
+     */
+    private static String endpointOf(URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        int api = path.indexOf("/api/");
+        return api >= 0 ? path.substring(api) : path;
+    }
+
+    @PreDestroy
+    public void close() {
+        asyncClient.close(CloseMode.GRACEFUL);
+    }
+}
@@ -60,8 +60,11 @@ public class SecurityConfig {
                         .requestMatchers("/api/servers/**").authenticated()
                         .requestMatchers("/api/content/**").authenticated()
                         .requestMatchers("/api/bulk-operations/**").authenticated()
+                        .requestMatchers("/api/artifacts/**").authenticated()
                         .requestMatchers("/api/reports/**").authenticated()
                         .requestMatchers("/api/audit/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(authenticationProvider())
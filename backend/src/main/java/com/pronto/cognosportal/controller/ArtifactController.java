@@ -0,0 +1,27 @@
+package com.pronto.cognosportal.controller;
+
+import com.pronto.cognosportal.model.Artifact;
+import com.pronto.cognosportal.service.ArtifactStorageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/artifacts")
+@RequiredArgsConstructor
+public class ArtifactController {
+
+    private final ArtifactStorageService artifactStorageService;
+
+    @GetMapping
+    public ResponseEntity<List<Artifact>> getArtifacts() {
+        return ResponseEntity.ok(artifactStorageService.getArtifacts());
+    }
+
+    @GetMapping("/{sha256}")
+    public ResponseEntity<Artifact> getArtifact(@PathVariable String sha256) {
+        return ResponseEntity.ok(artifactStorageService.getArtifact(sha256.toLowerCase()));
+    }
+}
@@ -9,8 +9,10 @@ import com.pronto.cognosportal.repository.BulkOperationRepository;
 import com.pronto.cognosportal.service.BulkOperationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -23,12 +25,36 @@ public class BulkOperationController {
     private final BulkOperationRepository bulkOperationRepository;
     private final BulkOperationDetailRepository detailRepository;
 
-    @PostMapping("/deploy")
+    @PostMapping(value = "/deploy", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<BulkOperationResponse> createBulkDeploy(@Valid @RequestBody BulkDeployRequest request) {
         BulkOperationResponse response = bulkOperationService.createBulkOperation(request);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Same as the JSON endpoint, with the content uploaded as the "file" part and the
+     * request as a JSON "request" part. sha256, if given, must match the uploaded file.
+     */
+    @PostMapping(value = "/deploy", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkOperationResponse> uploadBulkDeploy(
+            @Valid @RequestPart("request") BulkDeployRequest request,
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "sha256", required = false) String sha256) {
+        BulkOperationResponse response = bulkOperationService.createBulkOperation(request, file, sha256);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Deploys the stored artifact of an operation again, optionally skipping the targets
+     * that already succeeded.
+     */
+    @PostMapping("/{id}/rerun")
+    public ResponseEntity<BulkOperationResponse> rerunBulkDeploy(
+            @PathVariable Long id,
+            @RequestParam(value = "skipSucceeded", defaultValue = "false") boolean skipSucceeded) {
+        return ResponseEntity.ok(bulkOperationService.rerunBulkOperation(id, skipSucceeded));
+    }
+
     @GetMapping
     public ResponseEntity<List<BulkOperation>> getAllOperations() {
         return ResponseEntity.ok(bulkOperationRepository.findByOrderByCreatedAtDesc());
@@ -0,0 +1,56 @@
+package com.pronto.cognosportal.controller;
+
+import com.pronto.cognosportal.model.Job;
+import com.pronto.cognosportal.service.JobQueueService;
+import com.pronto.cognosportal.service.JobWorker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobQueueService jobQueueService;
+    private final JobWorker jobWorker;
+
+    @GetMapping
+    public ResponseEntity<List<Job>> getRecentJobs(@RequestParam(required = false) Job.JobStatus status) {
+        return ResponseEntity.ok(jobQueueService.getRecentJobs(status));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Job> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(jobQueueService.getJob(id));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(workerStats());
+    }
+
+    /**
+     * Throttles this node's job workers; 0 pauses them.
+     */
+    @PutMapping("/worker")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> setWorkerConcurrency(@RequestParam int concurrency) {
+        jobWorker.setConcurrency(concurrency);
+        return ResponseEntity.ok(workerStats());
+    }
+
+    private Map<String, Object> workerStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", jobQueueService.getQueueDepth());
+        stats.put("workerConcurrency", jobWorker.getConcurrency());
+        stats.put("workerMaxConcurrency", jobWorker.getMaxConcurrency());
+        stats.put("workerActive", jobWorker.getActiveCount());
+        return stats;
+    }
+}
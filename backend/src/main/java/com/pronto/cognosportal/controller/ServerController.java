@@ -1,19 +1,36 @@
 package com.pronto.cognosportal.controller;
 
+import com.pronto.cognosportal.dto.FleetPollSummary;
+import com.pronto.cognosportal.dto.MetadataTrend;
 import com.pronto.cognosportal.dto.ServerDTO;
 import com.pronto.cognosportal.dto.ServerEnrollmentRequest;
 import com.pronto.cognosportal.dto.ServerUpdateRequest;
+import com.pronto.cognosportal.model.Job;
+import com.pronto.cognosportal.model.ServerMetadataLatest;
+import com.pronto.cognosportal.service.CognosApiService;
+import com.pronto.cognosportal.service.FleetPollService;
+import com.pronto.cognosportal.service.InventoryValidatorCache;
+import com.pronto.cognosportal.service.JobQueueService;
+import com.pronto.cognosportal.service.MetadataTrendService;
+import com.pronto.cognosportal.service.PollTicket;
 import com.pronto.cognosportal.service.PollingService;
 import com.pronto.cognosportal.service.ServerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/servers")
@@ -22,6 +39,14 @@ public class ServerController {
 
     private final ServerService serverService;
     private final PollingService pollingService;
+    private final FleetPollService fleetPollService;
+    private final InventoryValidatorCache inventoryValidatorCache;
+    private final CognosApiService cognosApiService;
+    private final JobQueueService jobQueueService;
+    private final MetadataTrendService metadataTrendService;
+
+    @Value("${polling.request.wait-timeout-seconds:30}")
+    private long pollWaitTimeoutSeconds;
 
     @GetMapping
     public ResponseEntity<List<ServerDTO>> getAllServers(@RequestParam(required = false) Boolean active) {
@@ -36,6 +61,34 @@ public class ServerController {
         return ResponseEntity.ok(serverService.getServerById(id));
     }
 
+    /**
+     * Fleet-wide content counts over time, e.g. ?bucket=week&from=2024-01-01&xiVersion=760.
+     * byVersion=true returns one series per XI version.
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<MetadataTrend> getFleetTrend(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String xiVersion,
+            @RequestParam(defaultValue = "false") boolean byVersion) {
+        return ResponseEntity.ok(metadataTrendService.getFleetTrend(bucket, from, to, xiVersion, byVersion));
+    }
+
+    @GetMapping("/{id}/metadata")
+    public ResponseEntity<ServerMetadataLatest> getLatestMetadata(@PathVariable Long id) {
+        return ResponseEntity.of(metadataTrendService.getLatestMetadata(id));
+    }
+
+    @GetMapping("/{id}/trends")
+    public ResponseEntity<MetadataTrend> getServerTrend(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(metadataTrendService.getServerTrend(id, bucket, from, to));
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ServerDTO> enrollServer(@Valid @RequestBody ServerEnrollmentRequest request) {
@@ -57,15 +110,69 @@ public class ServerController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Starts a poll of the server, or joins the one running. With wait=true the request waits
+     * for the poll's result, but for no longer than polling.request.wait-timeout-seconds;
+     * a poll still running by then is answered with 202 and its ticket, as without wait.
+     */
     @PostMapping("/{id}/poll")
-    public ResponseEntity<Map<String, String>> pollServer(@PathVariable Long id) {
-        pollingService.pollServerAsync(id);
-        return ResponseEntity.ok(Map.of("message", "Polling started", "serverId", id.toString()));
+    public ResponseEntity<Map<String, Object>> pollServer(@PathVariable Long id,
+                                                          @RequestParam(defaultValue = "false") boolean wait)
+            throws InterruptedException {
+        PollTicket ticket = pollingService.requestPoll(id);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("serverId", id.toString());
+        body.put("joined", ticket.isJoined());
+        body.put("message", ticket.isJoined() ? "Joined in-progress poll" : "Polling started");
+        if (wait) {
+            try {
+                ticket.getResult().get(pollWaitTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                body.put("message", "Poll still in progress after " + pollWaitTimeoutSeconds + " s");
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new RuntimeException("Poll failed", e.getCause());
+            }
+            body.put("result", serverService.getServerById(id));
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/{id}/test-connection")
+    public ResponseEntity<Job> testConnection(@PathVariable Long id) {
+        serverService.getServerById(id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobQueueService.enqueueConnectivityTest(id));
     }
 
     @PostMapping("/poll-all")
-    public ResponseEntity<Map<String, String>> pollAllServers() {
-        pollingService.scheduledPollAllServers();
-        return ResponseEntity.ok(Map.of("message", "Polling all active servers"));
+    public ResponseEntity<FleetPollSummary> pollAllServers() {
+        FleetPollSummary summary = fleetPollService.startFleetPoll(FleetPollService.TRIGGER_MANUAL);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(summary);
+    }
+
+    @GetMapping("/poll-runs")
+    public ResponseEntity<List<FleetPollSummary>> getPollRuns() {
+        return ResponseEntity.ok(fleetPollService.getRecentRuns());
+    }
+
+    @GetMapping("/poll-runs/{runId}")
+    public ResponseEntity<FleetPollSummary> getPollRun(@PathVariable String runId) {
+        FleetPollSummary summary = fleetPollService.getRun(runId)
+                .orElseThrow(() -> new RuntimeException("Poll run not found"));
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/poll-cache-stats")
+    public ResponseEntity<Map<String, Object>> getPollCacheStats() {
+        return ResponseEntity.ok(inventoryValidatorCache.getStats());
+    }
+
+    @GetMapping("/http-pool-stats")
+    public ResponseEntity<Map<String, Object>> getHttpPoolStats() {
+        return ResponseEntity.ok(cognosApiService.getConnectionPoolStats());
     }
 }
@@ -1,5 +1,7 @@
 package com.pronto.cognosportal.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Data;
@@ -16,5 +18,23 @@ public class BulkDeployRequest {
 
     private String contentPath;
 
-    private String contentFile; // Base64 encoded content
+    private String contentFile; // Base64 encoded content; large artifacts should be uploaded as multipart instead
+
+    private String artifactSha256; // Deploys an already stored artifact instead of sending the content again
+
+    private Boolean skipIdentical; // Skip targets already running this artifact at contentPath; defaults to true
+
+    @Min(1)
+    private Integer maxConcurrency; // Targets deployed at once; defaults to all targets of a wave
+
+    @Min(0)
+    private Integer canaryCount; // Targets deployed, in request order, before all others
+
+    @Min(1)
+    @Max(100)
+    private Integer wavePercent; // Size of each later wave as a percentage of all targets; defaults to one wave
+
+    @Min(0)
+    @Max(100)
+    private Integer maxFailurePercent; // Failed targets tolerated after a wave before later waves are halted
 }
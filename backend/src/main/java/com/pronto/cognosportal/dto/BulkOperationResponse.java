@@ -11,4 +11,7 @@ public class BulkOperationResponse {
     private Long operationId;
     private String status;
     private Integer targetCount;
+    private Integer skippedCount;
+    private Integer waveCount;
+    private String contentSha256;
 }
@@ -0,0 +1,25 @@
+package com.pronto.cognosportal.dto;
+
+import com.pronto.cognosportal.model.ContentInventory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single content item reported by a Cognos server's content API.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CognosContentItem {
+    private ContentInventory.ContentType contentType;
+    private String name;
+    private String version;
+    private String path;
+
+    public String key() {
+        return contentType + "|" + path;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pronto.cognosportal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetPollSummary {
+    private String runId;
+    private String trigger;
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private Long durationMs;
+    private Integer totalServers;
+    private Integer completedServers;
+    private Integer successCount;
+    private Integer failureCount;
+    // Servers not polled because their circuit was open
+    private Integer skippedCount;
+    private Integer maxConcurrency;
+    private List<ServerPollResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ServerPollResult {
+        private Long serverId;
+        private String serverName;
+        private String status;
+        private String error;
+        private Long durationMs;
+    }
+}
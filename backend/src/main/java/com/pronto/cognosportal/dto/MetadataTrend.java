@@ -0,0 +1,47 @@
+package com.pronto.cognosportal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetadataTrend {
+    private Long serverId;
+    private String xiVersion;
+    private String bucket;
+    private LocalDate from;
+    private LocalDate to;
+    private List<Point> points;
+
+    /**
+     * One bucket of a trend. For a server, min/max/last are over its snapshots in the
+     * bucket; for the fleet, the totals are the sum of each server's last counts.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private String xiVersion;
+        private Integer serverCount;
+        private Long sampleCount;
+        private Integer reportMin;
+        private Integer reportMax;
+        private Long reportCount;
+        private Integer dashboardMin;
+        private Integer dashboardMax;
+        private Long dashboardCount;
+        private Integer dataModuleMin;
+        private Integer dataModuleMax;
+        private Long dataModuleCount;
+    }
+}
@@ -24,6 +24,11 @@ public class ServerDTO {
     private String pollStatus;
     private Boolean isActive;
     private String lastError;
+    private LocalDateTime nextPollAt;
+    private Integer pollIntervalMinutes;
+    private String circuitState;
+    private Integer consecutiveFailures;
+    private LocalDateTime circuitOpenUntil;
 
     public static ServerDTO fromEntity(CognosServer server) {
         return ServerDTO.builder()
@@ -38,6 +43,17 @@ public class ServerDTO {
                 .pollStatus(server.getPollStatus() != null ? server.getPollStatus().name() : null)
                 .isActive(server.getIsActive())
                 .lastError(server.getLastError())
+                .nextPollAt(server.getNextPollAt())
+                .pollIntervalMinutes(server.getPollIntervalMinutes())
                 .build();
     }
+
+    public static ServerDTO fromEntity(CognosServer server, String circuitState, int consecutiveFailures,
+                                       LocalDateTime circuitOpenUntil) {
+        ServerDTO dto = fromEntity(server);
+        dto.setCircuitState(circuitState);
+        dto.setConsecutiveFailures(consecutiveFailures);
+        dto.setCircuitOpenUntil(circuitOpenUntil);
+        return dto;
+    }
 }
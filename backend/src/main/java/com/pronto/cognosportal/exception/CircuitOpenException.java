@@ -0,0 +1,20 @@
+package com.pronto.cognosportal.exception;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thrown instead of calling a Cognos server whose circuit breaker is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final LocalDateTime retryAt;
+
+    public CircuitOpenException(String serverName, LocalDateTime retryAt) {
+        super("Circuit open for server " + serverName + (retryAt != null ? ", retry after " + retryAt : ""));
+        this.retryAt = retryAt;
+    }
+
+    public LocalDateTime getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pronto.cognosportal.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "artifacts")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Artifact {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    // Relative to deploy.artifacts.dir
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String path;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+}
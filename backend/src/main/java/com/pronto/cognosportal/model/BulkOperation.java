@@ -1,5 +1,6 @@
 package com.pronto.cognosportal.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -57,11 +58,80 @@ public class BulkOperation {
     @Column(name = "failure_count")
     private Integer failureCount = 0;
 
+    // Requested targets left out of targetServers because they already run the artifact
+    @Column(name = "skipped_count")
+    @Builder.Default
+    private Integer skippedCount = 0;
+
     @Column(name = "error_log", columnDefinition = "TEXT")
     private String errorLog;
 
+    @Column(name = "artifact_size")
+    private Long artifactSize;
+
+    @Column(name = "artifact_sha256", length = 64)
+    private String artifactSha256;
+
+    // Targets deployed at once; null deploys a whole wave at once
+    @Column(name = "max_concurrency")
+    private Integer maxConcurrency;
+
+    @Column(name = "canary_count")
+    @Builder.Default
+    private Integer canaryCount = 0;
+
+    // Size of each wave after the canaries, as a percentage of all targets; null deploys them in one wave
+    @Column(name = "wave_percent")
+    private Integer wavePercent;
+
+    // Halts the operation after a wave when more than this percentage of the targets so far failed
+    @Column(name = "max_failure_percent")
+    private Integer maxFailurePercent;
+
+    @Column(name = "wave_count")
+    @Builder.Default
+    private Integer waveCount = 1;
+
+    @Column(name = "current_wave")
+    @Builder.Default
+    private Integer currentWave = 0;
+
+    @JsonIgnore
+    @Column(name = "next_target")
+    @Builder.Default
+    private Integer nextTarget = 0;
+
     public enum OperationStatus {
-        PENDING, IN_PROGRESS, COMPLETED, FAILED
+        PENDING, IN_PROGRESS, COMPLETED, FAILED, HALTED
+    }
+
+    /**
+     * Index into targetServers one past the last target of the given wave. Targets are
+     * deployed in request order: the canaries first, then batches of wavePercent of all
+     * targets.
+     */
+    public int waveEnd(int wave) {
+        int total = targetServers.length;
+        int canaries = Math.min(canaryCount == null ? 0 : canaryCount, total);
+        if (canaries > 0) {
+            if (wave == 0) {
+                return canaries;
+            }
+            wave--;
+        }
+        if (wavePercent == null) {
+            return total;
+        }
+        int size = Math.max(1, (int) Math.ceil(total * wavePercent / 100.0));
+        return (int) Math.min(total, canaries + (long) (wave + 1) * size);
+    }
+
+    public int countWaves() {
+        int waves = 1;
+        while (waveEnd(waves - 1) < targetServers.length) {
+            waves++;
+        }
+        return waves;
     }
 
     public void incrementSuccessCount() {
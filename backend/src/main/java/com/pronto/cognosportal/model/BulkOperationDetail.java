@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class BulkOperationDetail {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_operation_details_id_seq")
+    @SequenceGenerator(name = "bulk_operation_details_id_seq", sequenceName = "bulk_operation_details_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,6 +42,6 @@ public class BulkOperationDetail {
     private LocalDateTime executedAt;
 
     public enum DetailStatus {
-        SUCCESS, FAILED, PENDING, IN_PROGRESS
+        SUCCESS, FAILED, PENDING, IN_PROGRESS, SKIPPED
     }
 }
@@ -21,7 +21,8 @@ import java.util.Map;
 public class ChangeHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_history_id_seq")
+    @SequenceGenerator(name = "change_history_id_seq", sequenceName = "change_history_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -57,6 +57,12 @@ public class CognosServer {
     @Column(name = "last_error", columnDefinition = "TEXT")
     private String lastError;
 
+    @Column(name = "next_poll_at")
+    private LocalDateTime nextPollAt;
+
+    @Column(name = "poll_interval_minutes")
+    private Integer pollIntervalMinutes;
+
     public enum PollStatus {
         SUCCESS, FAILED, IN_PROGRESS, NEVER_POLLED
     }
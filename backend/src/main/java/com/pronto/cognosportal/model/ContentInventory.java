@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class ContentInventory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "server_content_inventory_id_seq")
+    @SequenceGenerator(name = "server_content_inventory_id_seq", sequenceName = "server_content_inventory_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
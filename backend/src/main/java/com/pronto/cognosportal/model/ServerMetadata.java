@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class ServerMetadata {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "server_metadata_id_seq")
+    @SequenceGenerator(name = "server_metadata_id_seq", sequenceName = "server_metadata_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
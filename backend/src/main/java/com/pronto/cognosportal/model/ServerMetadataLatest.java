@@ -0,0 +1,37 @@
+package com.pronto.cognosportal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The most recent metadata snapshot of a server, one row per server.
+ */
+@Entity
+@Table(name = "server_metadata_latest")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerMetadataLatest {
+
+    @Id
+    @Column(name = "server_id")
+    private Long serverId;
+
+    @Column(name = "report_count")
+    private Integer reportCount;
+
+    @Column(name = "dashboard_count")
+    private Integer dashboardCount;
+
+    @Column(name = "data_module_count")
+    private Integer dataModuleCount;
+
+    @Column(name = "captured_at", nullable = false)
+    private LocalDateTime capturedAt;
+}
@@ -0,0 +1,72 @@
+package com.pronto.cognosportal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Min, max and last value of each metadata count over one day or week of snapshots.
+ */
+@Entity
+@Table(name = "server_metadata_rollups")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerMetadataRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "server_id", nullable = false)
+    private Long serverId;
+
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Granularity granularity;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private Integer sampleCount;
+
+    @Column(name = "report_min")
+    private Integer reportMin;
+
+    @Column(name = "report_max")
+    private Integer reportMax;
+
+    @Column(name = "report_last")
+    private Integer reportLast;
+
+    @Column(name = "dashboard_min")
+    private Integer dashboardMin;
+
+    @Column(name = "dashboard_max")
+    private Integer dashboardMax;
+
+    @Column(name = "dashboard_last")
+    private Integer dashboardLast;
+
+    @Column(name = "data_module_min")
+    private Integer dataModuleMin;
+
+    @Column(name = "data_module_max")
+    private Integer dataModuleMax;
+
+    @Column(name = "data_module_last")
+    private Integer dataModuleLast;
+
+    @Column(name = "last_captured_at", nullable = false)
+    private LocalDateTime lastCapturedAt;
+
+    public enum Granularity {
+        DAY, WEEK
+    }
+}
@@ -0,0 +1,49 @@
+package com.pronto.cognosportal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of a full inventory sync that has not been swapped into server_content_inventory yet.
+ */
+@Entity
+@Table(name = "server_content_inventory_staging")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StagedContentInventory {
+
+    // Same sequence as server_content_inventory, the ids are kept when the rows are swapped in
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "server_content_inventory_staging_id_seq")
+    @SequenceGenerator(name = "server_content_inventory_staging_id_seq", sequenceName = "server_content_inventory_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "sync_id", nullable = false, length = 36)
+    private String syncId;
+
+    @Column(name = "server_id", nullable = false)
+    private Long serverId;
+
+    @Column(name = "content_type", nullable = false, length = 50)
+    @Enumerated(EnumType.STRING)
+    private ContentInventory.ContentType contentType;
+
+    @Column(name = "content_name", nullable = false)
+    private String contentName;
+
+    @Column(name = "content_version", length = 50)
+    private String contentVersion;
+
+    @Column(name = "content_path", nullable = false, columnDefinition = "TEXT")
+    private String contentPath;
+
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,55 @@
+package com.pronto.cognosportal.repository;
+
+import com.pronto.cognosportal.model.Artifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArtifactRepository extends JpaRepository<Artifact, String> {
+
+    List<Artifact> findByOrderByLastUsedAtDesc();
+
+    // A referenced artifact is never evicted. Taking a reference locks the row, so it either
+    // waits for an eviction of the artifact to commit or keeps the eviction from seeing it.
+
+    /**
+     * Registers the artifact if it is not stored yet and takes a reference to it. Returns
+     * true if the row was inserted, false if the artifact was already stored.
+     */
+    @Query(value = "INSERT INTO artifacts (sha256, path, size, ref_count, created_at, last_used_at) "
+            + "VALUES (:sha256, :path, :size, 1, LOCALTIMESTAMP, LOCALTIMESTAMP) "
+            + "ON CONFLICT (sha256) DO UPDATE SET ref_count = artifacts.ref_count + 1, last_used_at = LOCALTIMESTAMP "
+            + "RETURNING (xmax = 0)", nativeQuery = true)
+    boolean insertOrAcquire(String sha256, String path, long size);
+
+    /**
+     * Takes a reference to a stored artifact. Returns 0 if it is not (or no longer) stored.
+     */
+    @Modifying
+    @Query(value = "UPDATE artifacts SET ref_count = ref_count + 1, last_used_at = LOCALTIMESTAMP "
+            + "WHERE sha256 = :sha256", nativeQuery = true)
+    int acquire(String sha256);
+
+    @Modifying
+    @Query(value = "UPDATE artifacts SET ref_count = GREATEST(ref_count - 1, 0), last_used_at = LOCALTIMESTAMP "
+            + "WHERE sha256 = :sha256", nativeQuery = true)
+    int release(String sha256);
+
+    @Modifying
+    @Query(value = "DELETE FROM artifacts WHERE sha256 = :sha256", nativeQuery = true)
+    int evict(String sha256);
+
+    @Query(value = "SELECT COALESCE(SUM(size), 0) FROM artifacts", nativeQuery = true)
+    long totalSize();
+
+    /**
+     * Unreferenced artifacts, least recently used first.
+     */
+    @Query(value = "SELECT * FROM artifacts WHERE ref_count = 0 ORDER BY last_used_at LIMIT :limit "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Artifact> lockEvictable(int limit);
+}
@@ -2,6 +2,8 @@ package com.pronto.cognosportal.repository;
 
 import com.pronto.cognosportal.model.BulkOperation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +16,60 @@ public interface BulkOperationRepository extends JpaRepository<BulkOperation, Lo
     List<BulkOperation> findByInitiatedById(Long userId);
 
     List<BulkOperation> findByOrderByCreatedAtDesc();
+
+    // Targets of one operation finish on different workers, so progress is updated in place
+
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET status = 'IN_PROGRESS', started_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND status = 'PENDING'", nativeQuery = true)
+    int markStarted(Long id);
+
+    /**
+     * Counters and rollout position as committed, read under the row lock taken by
+     * incrementing a counter.
+     */
+    interface Progress {
+        Integer getSuccessCount();
+
+        Integer getFailureCount();
+
+        Integer getNextTarget();
+
+        Integer getCurrentWave();
+
+        String getStatus();
+    }
+
+    @Query(value = "SELECT success_count AS \"successCount\", failure_count AS \"failureCount\", "
+            + "next_target AS \"nextTarget\", current_wave AS \"currentWave\", status "
+            + "FROM bulk_operations WHERE id = :id", nativeQuery = true)
+    Progress findProgress(Long id);
+
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET success_count = success_count + 1 WHERE id = :id", nativeQuery = true)
+    int incrementSuccessCount(Long id);
+
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET failure_count = failure_count + 1 WHERE id = :id", nativeQuery = true)
+    int incrementFailureCount(Long id);
+
+    /**
+     * Marks the operation completed once every target has an outcome. Returns 1 for the
+     * call that completes it, 0 otherwise.
+     */
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET status = 'COMPLETED', completed_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND status IN ('PENDING', 'IN_PROGRESS') "
+            + "AND success_count + failure_count >= cardinality(target_servers)", nativeQuery = true)
+    int completeIfDone(Long id);
+
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET current_wave = :wave, next_target = :nextTarget WHERE id = :id",
+            nativeQuery = true)
+    int updateRollout(Long id, int wave, int nextTarget);
+
+    @Modifying
+    @Query(value = "UPDATE bulk_operations SET status = 'HALTED', completed_at = LOCALTIMESTAMP, error_log = :reason "
+            + "WHERE id = :id AND status IN ('PENDING', 'IN_PROGRESS')", nativeQuery = true)
+    int halt(Long id, String reason);
 }
@@ -2,8 +2,12 @@ package com.pronto.cognosportal.repository;
 
 import com.pronto.cognosportal.model.CognosServer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +23,42 @@ public interface CognosServerRepository extends JpaRepository<CognosServer, Long
     List<CognosServer> findByProntoXiVersion(String xiVersion);
 
     boolean existsByServerName(String serverName);
+
+    List<CognosServer> findByIsActiveTrueAndNextPollAtIsNull();
+
+    // Poll leases: lease_owner/lease_expires_at are not mapped on the entity, so saving a
+    // server never overwrites a lease. Lease expiry uses the database clock.
+
+    @Query(value = "SELECT id FROM cognos_servers WHERE is_active = true AND next_poll_at <= :now "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP) "
+            + "ORDER BY next_poll_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueForPoll(LocalDateTime now, int limit);
+
+    @Query(value = "SELECT id FROM cognos_servers WHERE is_active = true "
+            + "AND (last_poll_time IS NULL OR last_poll_time < :since) "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP) "
+            + "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockNotPolledSince(LocalDateTime since);
+
+    @Query(value = "SELECT id FROM cognos_servers WHERE id IN (:ids) "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP) "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnleased(List<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE cognos_servers SET lease_owner = :owner, "
+            + "lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :seconds) "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int acquireLeases(List<Long> ids, String owner, long seconds);
+
+    @Modifying
+    @Query(value = "UPDATE cognos_servers SET lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :seconds) "
+            + "WHERE id IN (:ids) AND lease_owner = :owner", nativeQuery = true)
+    int renewLeases(List<Long> ids, String owner, long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cognos_servers SET lease_owner = NULL, lease_expires_at = NULL "
+            + "WHERE id IN (:ids) AND lease_owner = :owner", nativeQuery = true)
+    int releaseLeases(List<Long> ids, String owner);
 }
@@ -1,11 +1,13 @@
 package com.pronto.cognosportal.repository;
 
 import com.pronto.cognosportal.model.ContentInventory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,7 +17,63 @@ public interface ContentInventoryRepository extends JpaRepository<ContentInvento
 
     List<ContentInventory> findByServerIdAndContentType(Long serverId, ContentInventory.ContentType contentType);
 
+    List<ContentInventory> findByServerIdAndContentPathIn(Long serverId, Collection<String> contentPaths);
+
+    int countByServerId(Long serverId);
+
+    @Query("SELECT ci FROM ContentInventory ci WHERE ci.server.id = :serverId AND ci.id > :afterId ORDER BY ci.id")
+    List<ContentInventory> findByServerIdAfterId(Long serverId, Long afterId, Pageable pageable);
+
     @Modifying
     @Query("DELETE FROM ContentInventory ci WHERE ci.server.id = :serverId")
     void deleteByServerId(Long serverId);
+
+    // Artifacts deployed by the portal, in deployed_content
+
+    /**
+     * Servers among serverIds whose content at contentPath is the given artifact: deployed
+     * by the portal, confirmed by a poll and at the same version in the inventory since. Each
+     * server is returned once, even if its inventory has several rows at the path.
+     */
+    @Query(value = "SELECT DISTINCT d.server_id FROM deployed_content d "
+            + "JOIN server_content_inventory i ON i.server_id = d.server_id AND i.content_path = d.content_path "
+            + "WHERE d.server_id IN (:serverIds) AND d.content_path = :contentPath "
+            + "AND d.artifact_sha256 = :sha256 AND d.confirmed_at IS NOT NULL "
+            + "AND i.content_version = d.content_version", nativeQuery = true)
+    List<Long> findServersWithDeployedArtifact(Collection<Long> serverIds, String contentPath, String sha256);
+
+    @Modifying
+    @Query(value = "INSERT INTO deployed_content (server_id, content_path, artifact_sha256, bulk_operation_id, deployed_at) "
+            + "VALUES (:serverId, :contentPath, :sha256, :operationId, LOCALTIMESTAMP) "
+            + "ON CONFLICT (server_id, content_path) DO UPDATE SET artifact_sha256 = EXCLUDED.artifact_sha256, "
+            + "bulk_operation_id = EXCLUDED.bulk_operation_id, deployed_at = EXCLUDED.deployed_at, "
+            + "content_version = NULL, confirmed_at = NULL", nativeQuery = true)
+    int recordDeployedArtifact(Long serverId, String contentPath, String sha256, Long operationId);
+
+    /**
+     * Forgets what was deployed at contentPath, e.g. after a failed or legacy deploy.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM deployed_content WHERE server_id = :serverId AND content_path = :contentPath",
+            nativeQuery = true)
+    int forgetDeployedArtifact(Long serverId, String contentPath);
+
+    /**
+     * Takes the version of freshly deployed content from the inventory just synced.
+     */
+    @Modifying
+    @Query(value = "UPDATE deployed_content d SET content_version = i.content_version, confirmed_at = LOCALTIMESTAMP "
+            + "FROM server_content_inventory i WHERE d.server_id = :serverId AND d.confirmed_at IS NULL "
+            + "AND i.server_id = d.server_id AND i.content_path = d.content_path "
+            + "AND i.content_version IS NOT NULL", nativeQuery = true)
+    int confirmDeployedArtifacts(Long serverId);
+
+    /**
+     * Forgets deployments whose content has since changed or disappeared on the server.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM deployed_content d WHERE d.server_id = :serverId AND d.confirmed_at IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM server_content_inventory i WHERE i.server_id = d.server_id "
+            + "AND i.content_path = d.content_path AND i.content_version = d.content_version)", nativeQuery = true)
+    int forgetChangedArtifacts(Long serverId);
 }
@@ -0,0 +1,56 @@
+package com.pronto.cognosportal.repository;
+
+import com.pronto.cognosportal.model.Job;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+    List<Job> findTop100ByOrderByIdDesc();
+
+    List<Job> findTop100ByStatusOrderByIdDesc(Job.JobStatus status);
+
+    List<Job> findByBulkOperationId(Long bulkOperationId);
+
+    @Query("SELECT j.jobType, j.status, COUNT(j) FROM Job j GROUP BY j.jobType, j.status")
+    List<Object[]> countByTypeAndStatus();
+
+    // Claims use the database clock, so clock skew between nodes does not matter
+
+    @Query(value = "SELECT id FROM jobs WHERE status = 'QUEUED' AND scheduled_at <= LOCALTIMESTAMP "
+            + "ORDER BY priority DESC, scheduled_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockRunnable(int limit);
+
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'RUNNING', locked_by = :owner, "
+            + "locked_until = LOCALTIMESTAMP + make_interval(secs => :seconds), "
+            + "attempts = attempts + 1, started_at = LOCALTIMESTAMP, completed_at = NULL "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int markRunning(List<Long> ids, String owner, long seconds);
+
+    @Modifying
+    @Query(value = "UPDATE jobs SET locked_until = LOCALTIMESTAMP + make_interval(secs => :seconds) "
+            + "WHERE id IN (:ids) AND status = 'RUNNING' AND locked_by = :owner", nativeQuery = true)
+    int renewLocks(List<Long> ids, String owner, long seconds);
+
+    /**
+     * Puts jobs whose worker stopped renewing them (e.g. the node died) back on the queue.
+     */
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'QUEUED', locked_by = NULL, locked_until = NULL, "
+            + "outcome = 'Requeued after worker ' || locked_by || ' stopped responding' "
+            + "WHERE status = 'RUNNING' AND locked_until < LOCALTIMESTAMP", nativeQuery = true)
+    int requeueExpired();
+
+    @Modifying
+    @Query(value = "INSERT INTO jobs (job_type, status, priority, server_id, max_attempts, scheduled_at, created_at) "
+            + "VALUES ('POLL', 'QUEUED', :priority, :serverId, 1, LOCALTIMESTAMP, LOCALTIMESTAMP) "
+            + "ON CONFLICT (server_id) WHERE job_type = 'POLL' AND status IN ('QUEUED', 'RUNNING') DO NOTHING",
+            nativeQuery = true)
+    int insertPollIfAbsent(Long serverId, int priority);
+}
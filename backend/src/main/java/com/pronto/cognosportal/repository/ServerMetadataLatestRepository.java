@@ -0,0 +1,23 @@
+package com.pronto.cognosportal.repository;
+
+import com.pronto.cognosportal.model.ServerMetadataLatest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ServerMetadataLatestRepository extends JpaRepository<ServerMetadataLatest, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO server_metadata_latest AS l "
+            + "(server_id, report_count, dashboard_count, data_module_count, captured_at) "
+            + "VALUES (:serverId, :reportCount, :dashboardCount, :dataModuleCount, :capturedAt) "
+            + "ON CONFLICT (server_id) DO UPDATE SET report_count = EXCLUDED.report_count, "
+            + "dashboard_count = EXCLUDED.dashboard_count, data_module_count = EXCLUDED.data_module_count, "
+            + "captured_at = EXCLUDED.captured_at WHERE l.captured_at <= EXCLUDED.captured_at", nativeQuery = true)
+    void upsert(Long serverId, Integer reportCount, Integer dashboardCount, Integer dataModuleCount,
+                LocalDateTime capturedAt);
+}
@@ -2,14 +2,20 @@ package com.pronto.cognosportal.repository;
 
 import com.pronto.cognosportal.model.ServerMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface ServerMetadataRepository extends JpaRepository<ServerMetadata, Long> {
 
-    @Query("SELECT sm FROM ServerMetadata sm WHERE sm.server.id = :serverId ORDER BY sm.capturedAt DESC LIMIT 1")
-    Optional<ServerMetadata> findLatestByServerId(Long serverId);
+    @Query("SELECT MIN(sm.capturedAt) FROM ServerMetadata sm WHERE sm.capturedAt < :cutoff")
+    Optional<LocalDateTime> findOldestCapturedBefore(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM ServerMetadata sm WHERE sm.capturedAt >= :from AND sm.capturedAt < :to")
+    int deleteCapturedBetween(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,107 @@
+package com.pronto.cognosportal.repository;
+
+import com.pronto.cognosportal.model.ServerMetadataRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ServerMetadataRollupRepository extends JpaRepository<ServerMetadataRollup, Long> {
+
+    String ROLLUP_COLUMNS = "(server_id, granularity, period_start, sample_count, "
+            + "report_min, report_max, report_last, dashboard_min, dashboard_max, dashboard_last, "
+            + "data_module_min, data_module_max, data_module_last, last_captured_at) ";
+
+    // Rolling up the same period again merges into the existing row
+    String MERGE_ON_CONFLICT = "ON CONFLICT (server_id, granularity, period_start) DO UPDATE SET "
+            + "sample_count = r.sample_count + EXCLUDED.sample_count, "
+            + "report_min = LEAST(r.report_min, EXCLUDED.report_min), "
+            + "report_max = GREATEST(r.report_max, EXCLUDED.report_max), "
+            + "report_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at "
+            + "THEN EXCLUDED.report_last ELSE r.report_last END, "
+            + "dashboard_min = LEAST(r.dashboard_min, EXCLUDED.dashboard_min), "
+            + "dashboard_max = GREATEST(r.dashboard_max, EXCLUDED.dashboard_max), "
+            + "dashboard_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at "
+            + "THEN EXCLUDED.dashboard_last ELSE r.dashboard_last END, "
+            + "data_module_min = LEAST(r.data_module_min, EXCLUDED.data_module_min), "
+            + "data_module_max = GREATEST(r.data_module_max, EXCLUDED.data_module_max), "
+            + "data_module_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at "
+            + "THEN EXCLUDED.data_module_last ELSE r.data_module_last END, "
+            + "last_captured_at = GREATEST(r.last_captured_at, EXCLUDED.last_captured_at)";
+
+    /**
+     * Adds one snapshot to the daily rollup of the day it was captured.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO server_metadata_rollups AS r " + ROLLUP_COLUMNS
+            + "VALUES (:serverId, 'DAY', date_trunc('day', CAST(:capturedAt AS TIMESTAMP)), 1, "
+            + ":reportCount, :reportCount, :reportCount, :dashboardCount, :dashboardCount, :dashboardCount, "
+            + ":dataModuleCount, :dataModuleCount, :dataModuleCount, :capturedAt) "
+            + MERGE_ON_CONFLICT, nativeQuery = true)
+    void addSnapshot(Long serverId, Integer reportCount, Integer dashboardCount, Integer dataModuleCount,
+                     LocalDateTime capturedAt);
+
+    /**
+     * Trend of one server, re-bucketed from its daily and weekly rollups. Rows are
+     * [bucket_start, sample_count, report_min, report_max, report_last, dashboard_min,
+     * dashboard_max, dashboard_last, data_module_min, data_module_max, data_module_last].
+     */
+    @Query(value = "SELECT date_trunc(:unit, period_start) AS bucket_start, SUM(sample_count), "
+            + "MIN(report_min), MAX(report_max), (array_agg(report_last ORDER BY last_captured_at DESC))[1], "
+            + "MIN(dashboard_min), MAX(dashboard_max), (array_agg(dashboard_last ORDER BY last_captured_at DESC))[1], "
+            + "MIN(data_module_min), MAX(data_module_max), "
+            + "(array_agg(data_module_last ORDER BY last_captured_at DESC))[1] "
+            + "FROM server_metadata_rollups WHERE server_id = :serverId "
+            + "AND period_start >= :from AND period_start < :to "
+            + "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> findServerTrend(Long serverId, String unit, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Fleet trend: per bucket, the sum over servers of each server's last counts in that
+     * bucket, optionally limited to and/or split by XI version. Rows are [bucket_start,
+     * xi_version, server_count, sample_count, report_total, dashboard_total, data_module_total].
+     */
+    @Query(value = "SELECT bucket_start, xi_version, COUNT(*), SUM(sample_count), "
+            + "SUM(report_last), SUM(dashboard_last), SUM(data_module_last) FROM ("
+            + "SELECT r.server_id, date_trunc(:unit, r.period_start) AS bucket_start, "
+            + "CASE WHEN :byVersion THEN s.pronto_xi_version END AS xi_version, SUM(r.sample_count) AS sample_count, "
+            + "(array_agg(r.report_last ORDER BY r.last_captured_at DESC))[1] AS report_last, "
+            + "(array_agg(r.dashboard_last ORDER BY r.last_captured_at DESC))[1] AS dashboard_last, "
+            + "(array_agg(r.data_module_last ORDER BY r.last_captured_at DESC))[1] AS data_module_last "
+            + "FROM server_metadata_rollups r JOIN cognos_servers s ON s.id = r.server_id "
+            + "WHERE r.period_start >= :from AND r.period_start < :to "
+            + "AND (CAST(:xiVersion AS VARCHAR) IS NULL OR s.pronto_xi_version = CAST(:xiVersion AS VARCHAR)) "
+            + "GROUP BY r.server_id, 2, 3) per_server "
+            + "GROUP BY bucket_start, xi_version ORDER BY bucket_start, xi_version", nativeQuery = true)
+    List<Object[]> findFleetTrend(String unit, LocalDateTime from, LocalDateTime to, String xiVersion,
+                                  boolean byVersion);
+
+    /**
+     * Aggregates daily rollups of periods before the cutoff into weekly rollups.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO server_metadata_rollups AS r " + ROLLUP_COLUMNS
+            + "SELECT server_id, 'WEEK', date_trunc('week', period_start), SUM(sample_count), "
+            + "MIN(report_min), MAX(report_max), (array_agg(report_last ORDER BY last_captured_at DESC))[1], "
+            + "MIN(dashboard_min), MAX(dashboard_max), (array_agg(dashboard_last ORDER BY last_captured_at DESC))[1], "
+            + "MIN(data_module_min), MAX(data_module_max), "
+            + "(array_agg(data_module_last ORDER BY last_captured_at DESC))[1], MAX(last_captured_at) "
+            + "FROM server_metadata_rollups WHERE granularity = 'DAY' AND period_start < :cutoff "
+            + "GROUP BY server_id, date_trunc('week', period_start) "
+            + MERGE_ON_CONFLICT, nativeQuery = true)
+    int rollUpDailyRollups(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM ServerMetadataRollup r WHERE r.granularity = :granularity AND r.periodStart < :cutoff")
+    int deleteByGranularityBefore(ServerMetadataRollup.Granularity granularity, LocalDateTime cutoff);
+
+    /**
+     * Transaction-scoped lock so only one node compacts at a time.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryCompactionLock(long key);
+}
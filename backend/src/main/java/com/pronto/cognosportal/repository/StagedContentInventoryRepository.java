@@ -0,0 +1,33 @@
+package com.pronto.cognosportal.repository;
+
+import com.pronto.cognosportal.model.StagedContentInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StagedContentInventoryRepository extends JpaRepository<StagedContentInventory, Long> {
+
+    /**
+     * Copies the rows staged by a sync into server_content_inventory, keeping their ids.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO server_content_inventory "
+            + "(id, server_id, content_type, content_name, content_version, content_path, last_updated, discovered_at) "
+            + "SELECT id, server_id, content_type, content_name, content_version, content_path, last_updated, LOCALTIMESTAMP "
+            + "FROM server_content_inventory_staging WHERE sync_id = :syncId", nativeQuery = true)
+    int promote(String syncId);
+
+    @Modifying
+    @Query(value = "DELETE FROM server_content_inventory_staging WHERE sync_id = :syncId", nativeQuery = true)
+    int deleteBySyncId(String syncId);
+
+    /**
+     * Deletes everything staged for the server, including rows left behind by a node that
+     * died mid-sync.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM server_content_inventory_staging WHERE server_id = :serverId", nativeQuery = true)
+    int deleteByServerId(Long serverId);
+}
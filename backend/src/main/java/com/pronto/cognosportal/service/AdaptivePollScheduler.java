@@ -0,0 +1,57 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.repository.CognosServerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Polls each server at its own next-poll time instead of the whole fleet at once.
+ * Each tick leases the servers that are due and hands them to the fleet poll engine;
+ * with several portal nodes, each node polls the batch it managed to lease.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptivePollScheduler {
+
+    private final CognosServerRepository serverRepository;
+    private final FleetPollService fleetPollService;
+    private final PollIntervalPolicy pollIntervalPolicy;
+    private final PollLeaseService pollLeaseService;
+
+    @Value("${polling.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${polling.adaptive.max-batch:500}")
+    private int maxBatch;
+
+    @Scheduled(fixedDelayString = "${polling.adaptive.tick-ms:60000}")
+    public void pollDueServers() {
+        if (!enabled) {
+            return;
+        }
+
+        List<CognosServer> unscheduled = serverRepository.findByIsActiveTrueAndNextPollAtIsNull();
+        if (!unscheduled.isEmpty()) {
+            unscheduled.forEach(pollIntervalPolicy::scheduleInitial);
+            serverRepository.saveAll(unscheduled);
+            log.info("Scheduled first adaptive poll for {} servers", unscheduled.size());
+        }
+
+        // The lease keeps other nodes, and later ticks, off a server until its poll has finished
+        List<CognosServer> due = pollLeaseService.claimDue(LocalDateTime.now(), maxBatch);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        log.info("Adaptive scheduler polling {} due servers", due.size());
+        fleetPollService.pollServers(FleetPollService.TRIGGER_ADAPTIVE, due);
+    }
+}
@@ -0,0 +1,311 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.Artifact;
+import com.pronto.cognosportal.repository.ArtifactRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of deploy artifacts under deploy.artifacts.dir, keyed by SHA-256
+ * and indexed in the artifacts table. Uploads are spooled to an incoming file and hashed
+ * before any transaction is opened; the operation that uses the artifact then takes a
+ * reference to it and moves the file into place in its own transaction. Identical content
+ * is stored once.
+ *
+ * Artifacts referenced by an unfinished operation are never evicted. Unreferenced ones are
+ * evicted, least recently used first, once they have been idle for max-idle-days or the
+ * store exceeds max-total-size. Any node may run a deploy job, so with more than one
+ * portal node the directory has to be shared storage.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArtifactStorageService {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final int EVICTION_BATCH = 100;
+
+    private final ArtifactRepository artifactRepository;
+
+    @Value("${deploy.artifacts.dir:${java.io.tmpdir}/cognos-portal/artifacts}")
+    private Path directory;
+
+    @Value("${deploy.artifacts.max-size:1GB}")
+    private DataSize maxSize;
+
+    @Value("${deploy.artifacts.max-total-size:50GB}")
+    private DataSize maxTotalSize;
+
+    @Value("${deploy.artifacts.max-idle-days:30}")
+    private int maxIdleDays;
+
+    @PostConstruct
+    void createDirectories() throws IOException {
+        directory = directory.toAbsolutePath();
+        // incoming is also the servlet container's multipart spool location
+        Files.createDirectories(directory.resolve("incoming"));
+    }
+
+    /**
+     * Spools an uploaded artifact to an incoming file and hashes it. The container has
+     * already spooled the upload to disk, in the incoming directory when configured as
+     * such, so this is a rename. The checksum is verified against expectedSha256 when
+     * one is given.
+     */
+    public SpooledArtifact spool(MultipartFile file, String expectedSha256) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Deploy artifact is empty");
+        }
+        checkSize(file.getSize());
+
+        Path incoming = newIncomingFile();
+        try {
+            // The File variant lets the container move its spooled file; the Path variant copies it
+            file.transferTo(incoming.toFile());
+            return hashed(incoming, expectedSha256);
+        } catch (IOException e) {
+            deleteQuietly(incoming);
+            throw new RuntimeException("Failed to store deploy artifact", e);
+        }
+    }
+
+    /**
+     * Spools artifact content received in memory, e.g. Base64 in a JSON request.
+     */
+    public SpooledArtifact spool(byte[] content) {
+        checkSize(content.length);
+
+        Path incoming = newIncomingFile();
+        try {
+            Files.write(incoming, content);
+            return hashed(incoming, null);
+        } catch (IOException e) {
+            deleteQuietly(incoming);
+            throw new RuntimeException("Failed to store deploy artifact", e);
+        }
+    }
+
+    /**
+     * Takes a reference to a spooled artifact and moves it into the store, replacing an
+     * identical copy if there is one. Must run in the transaction that records the
+     * reference, so the artifact cannot be evicted in between.
+     *
+     * The file is moved just before that transaction commits, and a failed move rolls it
+     * back, so a committed row always has its file. If the transaction rolls back before
+     * that, the file stays spooled for discard to delete; if the commit itself fails after
+     * the move, a file this transaction added to the store is deleted again.
+     */
+    public void acquire(SpooledArtifact spooled) {
+        String path = pathOf(spooled.getSha256());
+        boolean inserted = artifactRepository.insertOrAcquire(spooled.getSha256(), path, spooled.getSize());
+        Path source = directory.resolve(spooled.getPath());
+        Path target = directory.resolve(path);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            moveIntoStore(source, target);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Object moved;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                moved = moveIntoStore(source, target);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && moved != null && inserted) {
+                    deleteIfSameFile(target, moved);
+                }
+            }
+        });
+    }
+
+    /**
+     * Takes a reference to an artifact that is already stored, so it can be deployed again
+     * without an upload.
+     */
+    public Artifact acquire(String sha256) {
+        String hash = sha256 != null ? sha256.toLowerCase() : null;
+        if (hash == null || !SHA256.matcher(hash).matches()) {
+            throw new RuntimeException("Invalid artifact checksum: " + sha256);
+        }
+        if (artifactRepository.acquire(hash) == 0) {
+            throw new RuntimeException("Artifact " + hash + " is not stored, upload it again");
+        }
+        Artifact artifact = getArtifact(hash);
+        if (!Files.isRegularFile(directory.resolve(artifact.getPath()))) {
+            throw new RuntimeException("Artifact " + hash + " is missing from the store, upload it again");
+        }
+        return artifact;
+    }
+
+    public void release(String sha256) {
+        artifactRepository.release(sha256);
+    }
+
+    /**
+     * Deletes a spooled artifact that was not acquired.
+     */
+    public void discard(SpooledArtifact spooled) {
+        deleteQuietly(directory.resolve(spooled.getPath()));
+    }
+
+    /**
+     * Returns the artifact's file after checking it is complete.
+     */
+    public Path open(String sha256, long expectedSize) {
+        Artifact artifact = getArtifact(sha256);
+        Path file = directory.resolve(artifact.getPath());
+        try {
+            long size = Files.size(file);
+            if (size != expectedSize) {
+                throw new RuntimeException("Artifact " + sha256 + " has " + size + " bytes, expected "
+                        + expectedSize);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Artifact " + sha256 + " is not available", e);
+        }
+    }
+
+    public Artifact getArtifact(String sha256) {
+        return artifactRepository.findById(sha256)
+                .orElseThrow(() -> new RuntimeException("Artifact not found: " + sha256));
+    }
+
+    public List<Artifact> getArtifacts() {
+        return artifactRepository.findByOrderByLastUsedAtDesc();
+    }
+
+    /**
+     * Evicts unreferenced artifacts that have been idle too long, then, least recently used
+     * first, as many more as needed to bring the store under its size limit. Files are
+     * deleted while the rows are locked, so a concurrent upload of the same content waits
+     * and then stores its own copy.
+     */
+    @Scheduled(fixedDelayString = "${deploy.artifacts.eviction-interval-ms:600000}")
+    @Transactional
+    public void evict() {
+        long total = artifactRepository.totalSize();
+        LocalDateTime idleBefore = LocalDateTime.now().minusDays(maxIdleDays);
+        int evicted = 0;
+
+        for (Artifact artifact : artifactRepository.lockEvictable(EVICTION_BATCH)) {
+            boolean idle = artifact.getLastUsedAt().isBefore(idleBefore);
+            if (!idle && total <= maxTotalSize.toBytes()) {
+                // Least recently used first, so the rest are neither idle nor needed for space
+                break;
+            }
+            artifactRepository.evict(artifact.getSha256());
+            deleteQuietly(directory.resolve(artifact.getPath()));
+            total -= artifact.getSize();
+            evicted++;
+        }
+
+        if (evicted > 0) {
+            log.info("Evicted {} deploy artifacts, {} bytes stored", evicted, total);
+        }
+    }
+
+    /**
+     * Moves a file into the store and returns its file key, which identifies it even if it
+     * is replaced by another copy of the same artifact.
+     */
+    private static Object moveIntoStore(Path source, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Object key = Files.readAttributes(target, BasicFileAttributes.class).fileKey();
+            return key != null ? key : target;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store deploy artifact", e);
+        }
+    }
+
+    /**
+     * Deletes a file moved into the store by a transaction that did not commit, unless a
+     * concurrent upload of the same content has since replaced it with its own copy.
+     */
+    private static void deleteIfSameFile(Path file, Object key) {
+        try {
+            Object current = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+            if (current == null || current.equals(key)) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    private SpooledArtifact hashed(Path incoming, String expectedSha256) throws IOException {
+        String sha256 = sha256(incoming);
+        if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(sha256)) {
+            deleteQuietly(incoming);
+            throw new RuntimeException("Deploy artifact checksum mismatch: expected " + expectedSha256
+                    + ", received " + sha256);
+        }
+        long size = Files.size(incoming);
+        log.info("Received deploy artifact {} ({} bytes)", sha256, size);
+        return new SpooledArtifact(directory.relativize(incoming).toString(), size, sha256);
+    }
+
+    private void checkSize(long size) {
+        if (size > maxSize.toBytes()) {
+            throw new RuntimeException("Deploy artifact exceeds the maximum size of " + maxSize);
+        }
+    }
+
+    private Path newIncomingFile() {
+        return directory.resolve("incoming").resolve(UUID.randomUUID() + ".part");
+    }
+
+    private static String pathOf(String sha256) {
+        return "sha256/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete deploy artifact {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -6,14 +6,21 @@ import com.pronto.cognosportal.model.*;
 import com.pronto.cognosportal.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,27 +31,126 @@ public class BulkOperationService {
     private final BulkOperationDetailRepository detailRepository;
     private final CognosServerRepository serverRepository;
     private final ChangeHistoryRepository changeHistoryRepository;
+    private final ContentInventoryRepository contentInventoryRepository;
     private final CognosApiService cognosApiService;
     private final AuthService authService;
     private final AuditService auditService;
+    private final PollIntervalPolicy pollIntervalPolicy;
+    private final JobQueueService jobQueueService;
+    private final PortalMetrics metrics;
+    private final ArtifactStorageService artifactStorageService;
+    // Own proxy, so transactional steps run in their own transaction after remote or file I/O
+    private final ObjectProvider<BulkOperationService> self;
 
-    @Transactional
+    /**
+     * Creates an operation whose content was uploaded as a multipart file. The artifact is
+     * spooled and checksummed before any transaction is opened.
+     */
+    public BulkOperationResponse createBulkOperation(BulkDeployRequest request, MultipartFile file,
+                                                     String expectedSha256) {
+        if (request.getArtifactSha256() != null) {
+            throw new RuntimeException("Either upload an artifact or give artifactSha256, not both");
+        }
+        return createWithArtifact(request, artifactStorageService.spool(file, expectedSha256));
+    }
+
+    /**
+     * Creates an operation from a JSON request, with the content, if any, Base64 encoded or
+     * given as the checksum of a stored artifact.
+     */
     public BulkOperationResponse createBulkOperation(BulkDeployRequest request) {
+        SpooledArtifact artifact = null;
+        if (request.getContentFile() != null) {
+            if (request.getArtifactSha256() != null) {
+                throw new RuntimeException("Either send contentFile or artifactSha256, not both");
+            }
+            artifact = artifactStorageService.spool(Base64.getDecoder().decode(request.getContentFile()));
+        }
+        return createWithArtifact(request, artifact);
+    }
+
+    private BulkOperationResponse createWithArtifact(BulkDeployRequest request, SpooledArtifact artifact) {
+        try {
+            return self.getObject().createBulkOperation(request, artifact);
+        } finally {
+            // Nothing left to delete once the artifact has been moved into the store
+            if (artifact != null) {
+                artifactStorageService.discard(artifact);
+            }
+        }
+    }
+
+    /**
+     * Saves the operation and queues deploy jobs for its first targets in the same
+     * transaction, so an accepted operation is carried out even across restarts.
+     *
+     * Targets are rolled out in waves: the canaries, if any, then batches of wavePercent
+     * of all targets. At most maxConcurrency targets of an operation have a deploy job at
+     * any time; each finished target queues the next one of its wave, and the last one
+     * of a wave starts the next wave unless the failure threshold has been exceeded.
+     *
+     * Targets whose content at contentPath is already the artifact are left out and recorded
+     * as SKIPPED, unless the request turns skipIdentical off. The operation holds a
+     * reference to its artifact until it completes or halts.
+     */
+    @Transactional
+    public BulkOperationResponse createBulkOperation(BulkDeployRequest request, SpooledArtifact artifact) {
         User currentUser = authService.getCurrentUser();
 
+        String artifactSha256 = null;
+        Long artifactSize = null;
+        if (artifact != null) {
+            artifactStorageService.acquire(artifact);
+            artifactSha256 = artifact.getSha256();
+            artifactSize = artifact.getSize();
+        } else if (request.getArtifactSha256() != null) {
+            Artifact stored = artifactStorageService.acquire(request.getArtifactSha256());
+            artifactSha256 = stored.getSha256();
+            artifactSize = stored.getSize();
+        }
+
+        Long[] targets = request.getTargetServers();
+        List<Long> skipped = List.of();
+        if (artifactSha256 != null && request.getContentPath() != null
+                && !Boolean.FALSE.equals(request.getSkipIdentical())) {
+            skipped = contentInventoryRepository.findServersWithDeployedArtifact(
+                    Arrays.asList(targets), request.getContentPath(), artifactSha256);
+            Set<Long> identical = new HashSet<>(skipped);
+            targets = Arrays.stream(targets).filter(id -> !identical.contains(id)).toArray(Long[]::new);
+        }
+        boolean upToDate = targets.length == 0;
+
         BulkOperation operation = BulkOperation.builder()
                 .operationType(request.getOperationType())
                 .operationName(request.getOperationName())
-                .targetServers(request.getTargetServers())
+                .targetServers(targets)
                 .contentPath(request.getContentPath())
-                .status(BulkOperation.OperationStatus.PENDING)
+                .artifactSize(artifactSize)
+                .artifactSha256(artifactSha256)
+                .status(upToDate ? BulkOperation.OperationStatus.COMPLETED : BulkOperation.OperationStatus.PENDING)
+                .completedAt(upToDate ? LocalDateTime.now() : null)
                 .initiatedBy(currentUser)
+                .successCount(0)
+                .failureCount(0)
+                .skippedCount(skipped.size())
+                .maxConcurrency(request.getMaxConcurrency())
+                .canaryCount(request.getCanaryCount() != null ? request.getCanaryCount() : 0)
+                .wavePercent(request.getWavePercent())
+                .maxFailurePercent(request.getMaxFailurePercent())
+                .currentWave(0)
                 .build();
+        operation.setWaveCount(operation.countWaves());
+        int firstTargets = targetsToQueue(operation, 0, 0, 0);
+        operation.setNextTarget(firstTargets);
 
         operation = bulkOperationRepository.save(operation);
 
-        // Execute asynchronously
-        executeBulkDeployAsync(operation.getId(), request);
+        // Executed by the job workers
+        queueTargets(operation, 0, firstTargets);
+        recordSkippedTargets(operation, skipped);
+        if (upToDate) {
+            releaseArtifact(operation);
+        }
 
         auditService.logSuccess(currentUser, "BULK_OPERATION_CREATED", "BULK_OPERATION",
                 operation.getId(), null, null);
@@ -53,68 +159,281 @@ public class BulkOperationService {
                 .operationId(operation.getId())
                 .status(operation.getStatus().name())
                 .targetCount(request.getTargetServers().length)
+                .skippedCount(operation.getSkippedCount())
+                .waveCount(operation.getWaveCount())
+                .contentSha256(operation.getArtifactSha256())
                 .build();
     }
 
-    @Async
+    /**
+     * Deploys the artifact of an earlier operation again with the same settings, to all of
+     * its targets or only to those that did not succeed. The artifact is taken from the
+     * store, so nothing is uploaded.
+     */
     @Transactional
-    public void executeBulkDeployAsync(Long operationId, BulkDeployRequest request) {
-        BulkOperation operation = bulkOperationRepository.findById(operationId)
+    public BulkOperationResponse rerunBulkOperation(Long operationId, boolean skipSucceeded) {
+        BulkOperation original = bulkOperationRepository.findById(operationId)
                 .orElseThrow(() -> new RuntimeException("Operation not found"));
+        if (original.getArtifactSha256() == null) {
+            throw new RuntimeException("Operation " + operationId + " has no stored artifact to deploy again");
+        }
 
-        executeBulkDeploy(operation, request);
+        // Targets that were skipped as up to date are part of the operation too
+        List<BulkOperationDetail> details = detailRepository.findByBulkOperationId(operationId);
+        Long[] targets = Stream.concat(Arrays.stream(original.getTargetServers()), details.stream()
+                        .filter(detail -> detail.getStatus() == BulkOperationDetail.DetailStatus.SKIPPED)
+                        .map(detail -> detail.getServer().getId()))
+                .toArray(Long[]::new);
+        if (skipSucceeded) {
+            Set<Long> succeeded = details.stream()
+                    .filter(detail -> detail.getStatus() == BulkOperationDetail.DetailStatus.SUCCESS
+                            || detail.getStatus() == BulkOperationDetail.DetailStatus.SKIPPED)
+                    .map(detail -> detail.getServer().getId())
+                    .collect(Collectors.toSet());
+            targets = Arrays.stream(targets).filter(id -> !succeeded.contains(id)).toArray(Long[]::new);
+            if (targets.length == 0) {
+                throw new RuntimeException("All targets of operation " + operationId + " succeeded");
+            }
+        }
+
+        BulkDeployRequest request = new BulkDeployRequest();
+        request.setOperationType(original.getOperationType());
+        request.setOperationName(original.getOperationName());
+        request.setTargetServers(targets);
+        request.setContentPath(original.getContentPath());
+        request.setArtifactSha256(original.getArtifactSha256());
+        request.setMaxConcurrency(original.getMaxConcurrency());
+        request.setCanaryCount(original.getCanaryCount());
+        request.setWavePercent(original.getWavePercent());
+        request.setMaxFailurePercent(original.getMaxFailurePercent());
+        return createBulkOperation(request, null);
     }
 
+    /**
+     * Marks the operation started when its first target is picked up. Runs in its own
+     * short transaction so deploys do not queue up behind the operation's row lock.
+     */
     @Transactional
-    public void executeBulkDeploy(BulkOperation operation, BulkDeployRequest request) {
-        log.info("Starting bulk operation: {}", operation.getId());
+    public void markStarted(Long operationId) {
+        if (bulkOperationRepository.markStarted(operationId) > 0) {
+            log.info("Starting bulk operation: {}", operationId);
+        }
+    }
 
-        operation.setStatus(BulkOperation.OperationStatus.IN_PROGRESS);
-        operation.setStartedAt(LocalDateTime.now());
-        bulkOperationRepository.save(operation);
+    /**
+     * Deploys the operation's content to the job's target server. Throws if the deployment
+     * fails, leaving the retry decision to the job queue; the target's outcome is recorded
+     * only once it has succeeded or failed for good (see {@link #recordTargetFailure}).
+     *
+     * Not transactional: the upload runs with no transaction open and its success is
+     * committed in a short transaction afterwards, so a long upload holds no pooled connection.
+     */
+    public void deployTarget(Job job) {
+        BulkOperation operation = bulkOperationRepository.findById(job.getBulkOperationId())
+                .orElseThrow(() -> new RuntimeException("Operation not found"));
+        CognosServer server = serverRepository.findById(job.getServerId())
+                .orElseThrow(() -> new RuntimeException("Server not found: " + job.getServerId()));
 
-        byte[] content = null;
-        if (request.getContentFile() != null) {
-            content = Base64.getDecoder().decode(request.getContentFile());
+        PortalMetrics.Sample sample = metrics.startDeploy(server);
+        try {
+            // Deploy content via Cognos API, streamed from the artifact file
+            if (operation.getArtifactSha256() != null) {
+                cognosApiService.deployContent(server,
+                        artifactStorageService.open(operation.getArtifactSha256(), operation.getArtifactSize()),
+                        operation.getContentPath());
+            }
+
+            self.getObject().recordTargetSuccess(job);
+        } catch (RuntimeException e) {
+            sample.fail(e);
+            throw e;
         }
+        sample.stop(PortalMetrics.OUTCOME_SUCCESS);
 
-        for (Long serverId : request.getTargetServers()) {
-            try {
-                CognosServer server = serverRepository.findById(serverId)
-                        .orElseThrow(() -> new RuntimeException("Server not found: " + serverId));
+        log.info("Successfully deployed to server: {}", server.getServerName());
+    }
 
-                // Deploy content via Cognos API
-                if (content != null) {
-                    cognosApiService.deployContent(server, content, request.getContentPath());
-                }
+    /**
+     * Records a target whose content has been deployed and moves the rollout on.
+     */
+    @Transactional
+    public void recordTargetSuccess(Job job) {
+        BulkOperation operation = bulkOperationRepository.findById(job.getBulkOperationId())
+                .orElseThrow(() -> new RuntimeException("Operation not found"));
+        CognosServer server = serverRepository.findById(job.getServerId())
+                .orElseThrow(() -> new RuntimeException("Server not found: " + job.getServerId()));
 
-                // Record success
-                recordOperationDetail(operation, server, BulkOperationDetail.DetailStatus.SUCCESS, null);
-                operation.incrementSuccessCount();
+        // Re-poll soon so the inventory reflects the deployment
+        pollIntervalPolicy.boost(server);
+        serverRepository.save(server);
 
-                // Log to change_history
-                logContentDeployment(server, request, operation.getInitiatedBy());
+        // Record success
+        recordOperationDetail(operation, server, BulkOperationDetail.DetailStatus.SUCCESS, null);
+        recordDeployedContent(operation, server.getId());
 
-                log.info("Successfully deployed to server: {}", server.getServerName());
-            } catch (Exception e) {
-                log.error("Failed to deploy to server {}: {}", serverId, e.getMessage());
+        // Log to change_history
+        logContentDeployment(server, operation);
 
-                CognosServer server = serverRepository.findById(serverId).orElse(null);
-                recordOperationDetail(operation, server, BulkOperationDetail.DetailStatus.FAILED, e.getMessage());
-                operation.incrementFailureCount();
+        // Last, so the operation's row is locked only until this transaction commits
+        bulkOperationRepository.incrementSuccessCount(operation.getId());
+        advanceRollout(operation);
+    }
+
+    /**
+     * Records a failed attempt of a deploy job and, once the job has run out of attempts,
+     * the target's failure, in one transaction, so a job can never be failed for good
+     * without its target being counted. If recording either fails, the job's lock expires
+     * and it is requeued to be failed again.
+     */
+    @Transactional
+    public void failTarget(Job job, String errorMessage) {
+        if (!jobQueueService.fail(job, errorMessage)) {
+            recordTargetFailure(job, errorMessage);
+        }
+    }
+
+    /**
+     * Records a target whose deploy job has run out of attempts.
+     */
+    @Transactional
+    public void recordTargetFailure(Job job, String errorMessage) {
+        BulkOperation operation = bulkOperationRepository.findById(job.getBulkOperationId())
+                .orElseThrow(() -> new RuntimeException("Operation not found"));
+        CognosServer server = serverRepository.findById(job.getServerId()).orElse(null);
+
+        log.error("Failed to deploy to server {}: {}", job.getServerId(), errorMessage);
+        bulkOperationRepository.markStarted(operation.getId());
+        recordOperationDetail(operation, server, BulkOperationDetail.DetailStatus.FAILED, errorMessage);
+        if (operation.getContentPath() != null) {
+            // A failed deploy may have left anything at the path
+            contentInventoryRepository.forgetDeployedArtifact(job.getServerId(), operation.getContentPath());
+        }
+        bulkOperationRepository.incrementFailureCount(operation.getId());
+        advanceRollout(operation);
+    }
+
+    /**
+     * Called after a target's outcome has been counted, which holds the operation's row
+     * lock until commit, so outcomes of one operation are handled one at a time. Queues the
+     * next target of the current wave or, once the wave has finished, starts the next wave,
+     * halts the operation or completes it.
+     */
+    private void advanceRollout(BulkOperation operation) {
+        BulkOperationRepository.Progress progress = bulkOperationRepository.findProgress(operation.getId());
+        int finished = progress.getSuccessCount() + progress.getFailureCount();
+        int wave = progress.getCurrentWave();
+        int nextTarget = progress.getNextTarget();
+
+        if (!BulkOperation.OperationStatus.IN_PROGRESS.name().equals(progress.getStatus())
+                && !BulkOperation.OperationStatus.PENDING.name().equals(progress.getStatus())) {
+            return;
+        }
+
+        if (finished >= operation.getTargetServers().length) {
+            completeIfDone(operation);
+            return;
+        }
+
+        if (finished >= operation.waveEnd(wave)) {
+            if (exceedsFailureThreshold(operation, progress.getFailureCount(), finished)) {
+                String reason = String.format("Halted after wave %d of %d: %d of %d targets failed (threshold %d%%)",
+                        wave + 1, operation.getWaveCount(), progress.getFailureCount(), finished,
+                        operation.getMaxFailurePercent());
+                if (bulkOperationRepository.halt(operation.getId(), reason) > 0) {
+                    releaseArtifact(operation);
+                    auditService.logSuccess(operation.getInitiatedBy(), "BULK_DEPLOY_HALTED",
+                            "BULK_OPERATION", operation.getId(), null, null);
+                    log.warn("Bulk operation {}: {}", operation.getId(), reason);
+                }
+                return;
             }
+            wave++;
+            log.info("Bulk operation {}: starting wave {} of {}", operation.getId(), wave + 1,
+                    operation.getWaveCount());
+        }
+
+        int count = targetsToQueue(operation, wave, nextTarget, nextTarget - finished);
+        if (count > 0 || wave != progress.getCurrentWave()) {
+            bulkOperationRepository.updateRollout(operation.getId(), wave, nextTarget + count);
+            queueTargets(operation, nextTarget, count);
+        }
+    }
+
+    /**
+     * Number of targets to queue from nextTarget on: the rest of the wave, limited by the
+     * operation's concurrency minus the targets still in flight.
+     */
+    private static int targetsToQueue(BulkOperation operation, int wave, int nextTarget, int inFlight) {
+        int remaining = operation.waveEnd(wave) - nextTarget;
+        if (operation.getMaxConcurrency() == null) {
+            return Math.max(0, remaining);
         }
+        return Math.max(0, Math.min(remaining, operation.getMaxConcurrency() - inFlight));
+    }
 
-        operation.setStatus(BulkOperation.OperationStatus.COMPLETED);
-        operation.setCompletedAt(LocalDateTime.now());
-        bulkOperationRepository.save(operation);
+    private void queueTargets(BulkOperation operation, int from, int count) {
+        if (count > 0) {
+            jobQueueService.enqueueDeployTargets(operation.getId(),
+                    Arrays.copyOfRange(operation.getTargetServers(), from, from + count));
+        }
+    }
+
+    private static boolean exceedsFailureThreshold(BulkOperation operation, int failures, int finished) {
+        return operation.getMaxFailurePercent() != null
+                && failures * 100L > (long) operation.getMaxFailurePercent() * finished;
+    }
+
+    private void completeIfDone(BulkOperation operation) {
+        if (bulkOperationRepository.completeIfDone(operation.getId()) == 0) {
+            return;
+        }
+        releaseArtifact(operation);
 
         // Audit log
         auditService.logSuccess(operation.getInitiatedBy(), "BULK_DEPLOY_COMPLETED",
                 "BULK_OPERATION", operation.getId(), null, null);
 
-        log.info("Bulk operation completed: {} (Success: {}, Failed: {})",
-                operation.getId(), operation.getSuccessCount(), operation.getFailureCount());
+        log.info("Bulk operation completed: {}", operation.getId());
+    }
+
+    private void recordSkippedTargets(BulkOperation operation, List<Long> serverIds) {
+        if (serverIds.isEmpty()) {
+            return;
+        }
+        String message = "Already running artifact " + operation.getArtifactSha256() + " at "
+                + operation.getContentPath();
+        detailRepository.saveAll(serverIds.stream()
+                .map(serverId -> BulkOperationDetail.builder()
+                        .bulkOperation(operation)
+                        .server(serverRepository.getReferenceById(serverId))
+                        .status(BulkOperationDetail.DetailStatus.SKIPPED)
+                        .errorMessage(message)
+                        .build())
+                .toList());
+        metrics.recordSkippedDeploys(serverIds.size());
+        log.info("Bulk operation {}: skipped {} targets already up to date", operation.getId(), serverIds.size());
+    }
+
+    /**
+     * Remembers the artifact now at the operation's content path, so later deploys of it can
+     * be skipped once a poll has confirmed the content's version.
+     */
+    private void recordDeployedContent(BulkOperation operation, Long serverId) {
+        if (operation.getContentPath() == null) {
+            return;
+        }
+        if (operation.getArtifactSha256() != null) {
+            contentInventoryRepository.recordDeployedArtifact(serverId, operation.getContentPath(),
+                    operation.getArtifactSha256(), operation.getId());
+        } else {
+            contentInventoryRepository.forgetDeployedArtifact(serverId, operation.getContentPath());
+        }
+    }
+
+    private void releaseArtifact(BulkOperation operation) {
+        if (operation.getArtifactSha256() != null) {
+            artifactStorageService.release(operation.getArtifactSha256());
+        }
     }
 
     @Transactional
@@ -131,16 +450,16 @@ public class BulkOperationService {
     }
 
     @Transactional
-    private void logContentDeployment(CognosServer server, BulkDeployRequest request, User user) {
+    private void logContentDeployment(CognosServer server, BulkOperation operation) {
         Map<String, Object> details = new HashMap<>();
-        details.put("operationType", request.getOperationType());
-        details.put("contentPath", request.getContentPath());
+        details.put("operationType", operation.getOperationType());
+        details.put("contentPath", operation.getContentPath());
 
         ChangeHistory changeHistory = ChangeHistory.builder()
                 .server(server)
                 .changeType("CONTENT_DEPLOYED")
                 .changeDetails(details)
-                .changedBy(user)
+                .changedBy(operation.getInitiatedBy())
                 .initiatedFrom(ChangeHistory.InitiatedFrom.PORTAL)
                 .build();
 
@@ -1,48 +1,47 @@
 package com.pronto.cognosportal.service;
 
+import com.pronto.cognosportal.config.CognosHttpClient;
+import com.pronto.cognosportal.dto.CognosContentItem;
 import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.ContentInventory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CognosApiService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final EncryptionService encryptionService;
+    private final CognosHttpClient httpClient;
+    private final CognosAsyncApiService asyncApiService;
+    private final CognosCircuitBreaker circuitBreaker;
 
     @Value("${cognos.api.demo-mode:true}")
     private boolean demoMode;
 
+    @Value("${cognos.api.inventory.page-size:0}")
+    private int inventoryPageSize;
+
+    @Value("${cognos.api.inventory.pages-in-flight:2}")
+    private int inventoryPagesInFlight;
+
     /**
      * Test connectivity to Cognos server
      */
     public boolean testConnection(CognosServer server) {
-        try {
-            String apiKey = encryptionService.decrypt(server.getApiKeyEncrypted());
-            HttpHeaders headers = createHeaders(apiKey);
-
-            String url = server.getBaseUrl() + "/api/v1/configuration";
-            HttpEntity<?> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, Map.class);
-
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            log.error("Failed to test connection to server {}: {}", server.getServerName(), e.getMessage());
-            return false;
-        }
+        return await(asyncApiService.testConnection(server));
     }
 
     /**
@@ -51,103 +50,132 @@ public class CognosApiService {
      * IBM Cognos Analytics 12.0 REST API documentation
      */
     public Map<String, Object> getContentInventory(CognosServer server) {
-        // Demo mode - return mock data for testing
-        if (demoMode) {
-            log.info("Demo mode: Returning mock data for server {}", server.getServerName());
-            return getMockContentInventory();
+        return await(asyncApiService.getContentInventory(server));
+    }
+
+    /**
+     * Fetches the content inventory as a map, unless it is unchanged since the last successful
+     * poll. See {@link CognosAsyncApiService#fetchContentInventory}.
+     */
+    public InventoryFetchResult fetchContentInventory(CognosServer server) {
+        return await(asyncApiService.fetchContentInventory(server));
+    }
+
+    /**
+     * Streams the content inventory of a Cognos server to the consumer in chunks of at most
+     * chunkSize items, without materializing the whole response. The consumer is called on
+     * the calling thread. See {@link CognosAsyncApiService#streamContentInventory}.
+     */
+    public InventoryFetchResult streamContentInventory(
+            CognosServer server, int chunkSize, Consumer<List<CognosContentItem>> chunkConsumer) {
+        if (inventoryPageSize > 0 && !demoMode) {
+            // Validators are per response, so paged fetches are always done in full
+            return new InventoryFetchResult(false,
+                    guarded(server, () -> fetchPagedContentInventory(server, chunkSize, chunkConsumer)), null, null);
         }
 
-        // Real mode - attempt to connect to actual Cognos server
-        try {
-            String apiKey = encryptionService.decrypt(server.getApiKeyEncrypted());
-            HttpHeaders headers = createHeaders(apiKey);
+        // The async client hands the parser over once the body starts; it is run here, so the
+        // chunks are consumed on the caller's thread as they arrive
+        CompletableFuture<Runnable> parser = new CompletableFuture<>();
+        CompletableFuture<InventoryFetchResult> result =
+                asyncApiService.streamContentInventory(server, chunkSize, chunkConsumer, parser::complete);
+        CompletableFuture.anyOf(parser, result).exceptionally(ex -> null).join();
+        if (parser.isDone()) {
+            parser.join().run();
+        }
+        return await(result);
+    }
 
-            // This endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
-            String url = server.getBaseUrl() + "/api/v1/content";
-            HttpEntity<?> entity = new HttpEntity<>(headers);
+    /**
+     * Fetches the inventory page by page, keeping up to inventoryPagesInFlight page requests
+     * running ahead on the async client while the caller persists the current page on its
+     * own thread. A page shorter than the page size marks the end of the inventory; the
+     * requests still in flight then, or when the fetch fails, are aborted.
+     */
+    private Map<ContentInventory.ContentType, Integer> fetchPagedContentInventory(
+            CognosServer server, int chunkSize, Consumer<List<CognosContentItem>> chunkConsumer) {
+        Map<ContentInventory.ContentType, Integer> counts = CognosInventoryParser.emptyCounts();
+        Deque<CompletableFuture<List<CognosContentItem>>> inFlight = new ArrayDeque<>();
+        int nextPage = 0;
+        int pagesFetched = 0;
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, Map.class);
+        try {
+            for (int i = 0; i < Math.max(1, inventoryPagesInFlight); i++) {
+                inFlight.add(fetchInventoryPage(server, nextPage++));
+            }
+
+            while (!inFlight.isEmpty()) {
+                List<CognosContentItem> page = inFlight.poll().join();
+                pagesFetched++;
+
+                if (page.size() < inventoryPageSize) {
+                    // Last page: anything still in flight is past the end
+                    inFlight.forEach(future -> future.cancel(true));
+                    inFlight.clear();
+                } else {
+                    inFlight.add(fetchInventoryPage(server, nextPage++));
+                }
+
+                page.forEach(item -> counts.merge(item.getContentType(), 1, Integer::sum));
+                for (int i = 0; i < page.size(); i += chunkSize) {
+                    chunkConsumer.accept(page.subList(i, Math.min(i + chunkSize, page.size())));
+                }
+            }
 
-            return response.getBody();
+            log.debug("Fetched {} inventory pages from server {}", pagesFetched, server.getServerName());
+            return counts;
         } catch (Exception e) {
-            log.error("Failed to get content inventory from server {}: {}",
-                    server.getServerName(), e.getMessage());
-            throw new RuntimeException("Failed to fetch content inventory", e);
+            inFlight.forEach(future -> future.cancel(true));
+            Throwable cause = CognosAsyncApiService.unwrap(e);
+            log.error("Failed to fetch content inventory page from server {}: {}",
+                    server.getServerName(), cause.getMessage());
+            throw new RuntimeException("Failed to fetch content inventory", cause);
         }
     }
 
+    private CompletableFuture<List<CognosContentItem>> fetchInventoryPage(CognosServer server, int pageNumber) {
+        return asyncApiService.fetchContentInventoryPage(server, (long) pageNumber * inventoryPageSize,
+                inventoryPageSize);
+    }
+
     /**
-     * Returns mock data for demo/testing purposes
+     * Deploys content streamed from a file
      */
-    private Map<String, Object> getMockContentInventory() {
-        Map<String, Object> inventory = new HashMap<>();
-
-        // Mock reports
-        List<Map<String, String>> reports = new ArrayList<>();
-        reports.add(createMockContent("Sales Report Q4", "1.2.0", "/Reports/Sales"));
-        reports.add(createMockContent("Financial Overview", "2.1.0", "/Reports/Finance"));
-        reports.add(createMockContent("Customer Analytics", "1.0.5", "/Reports/Analytics"));
-
-        // Mock dashboards
-        List<Map<String, String>> dashboards = new ArrayList<>();
-        dashboards.add(createMockContent("Executive Dashboard", "3.0.0", "/Dashboards/Executive"));
-        dashboards.add(createMockContent("Operations Dashboard", "2.5.1", "/Dashboards/Ops"));
-
-        // Mock data modules
-        List<Map<String, String>> dataModules = new ArrayList<>();
-        dataModules.add(createMockContent("Sales Data", "1.1.0", "/Data/Sales"));
-        dataModules.add(createMockContent("Customer Data", "1.3.2", "/Data/Customer"));
-
-        inventory.put("reports", reports);
-        inventory.put("dashboards", dashboards);
-        inventory.put("dataModules", dataModules);
-
-        return inventory;
+    public void deployContent(CognosServer server, Path artifact, String path) {
+        await(asyncApiService.deployContent(server, artifact, path));
     }
 
-    private Map<String, String> createMockContent(String name, String version, String path) {
-        Map<String, String> content = new HashMap<>();
-        content.put("name", name);
-        content.put("version", version);
-        content.put("path", path);
-        return content;
+    public Map<String, Object> getConnectionPoolStats() {
+        return httpClient.getPoolStats();
     }
 
     /**
-     * Deploy content to Cognos server
-     * NOTE: This is a placeholder implementation
+     * Runs a remote call through the server's circuit breaker.
      */
-    public void deployContent(CognosServer server, byte[] content, String path) {
+    private <T> T guarded(CognosServer server, Supplier<T> call) {
+        circuitBreaker.acquire(server);
         try {
-            String apiKey = encryptionService.decrypt(server.getApiKeyEncrypted());
-            HttpHeaders headers = createHeaders(apiKey);
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-
-            // This endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
-            String url = server.getBaseUrl() + "/api/v1/content/deploy?path=" + path;
-
-            HttpEntity<byte[]> entity = new HttpEntity<>(content, headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, Map.class);
-
-            if (response.getStatusCode() != HttpStatus.OK && response.getStatusCode() != HttpStatus.CREATED) {
-                throw new RuntimeException("Deployment failed with status: " + response.getStatusCode());
-            }
-
-            log.info("Successfully deployed content to server {} at path {}",
-                    server.getServerName(), path);
-        } catch (Exception e) {
-            log.error("Failed to deploy content to server {}: {}", server.getServerName(), e.getMessage());
-            throw new RuntimeException("Failed to deploy content", e);
+            T result = call.get();
+            circuitBreaker.recordSuccess(server.getId());
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(server.getId(), e);
+            throw e;
         }
     }
 
-    private HttpHeaders createHeaders(String apiKey) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        return headers;
+    /**
+     * Waits for an async call, rethrowing its failure as thrown by the async service.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = CognosAsyncApiService.unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
     }
 }
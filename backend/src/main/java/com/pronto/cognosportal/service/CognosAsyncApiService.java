@@ -0,0 +1,530 @@
+package com.pronto.cognosportal.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pronto.cognosportal.config.CognosHttpClient;
+import com.pronto.cognosportal.dto.CognosContentItem;
+import com.pronto.cognosportal.exception.CircuitOpenException;
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.ContentInventory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking Cognos API. Every call returns a CompletableFuture backed by the async HTTP
+ * client, so many calls can be in flight without a thread parked per call. Cancelling a
+ * returned future aborts the underlying exchange; every call is bounded by
+ * cognos.api.http.total-timeout-seconds.
+ *
+ * The blocking methods of {@link CognosApiService} are thin adapters over this service.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CognosAsyncApiService {
+
+    /** Bytes of a streamed response buffered ahead of its parser before reading is paused */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final CognosHttpClient httpClient;
+    private final EncryptionService encryptionService;
+    private final InventoryValidatorCache validatorCache;
+    private final CognosCircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cognos.api.demo-mode:true}")
+    private boolean demoMode;
+
+    @Value("${cognos.api.http.total-timeout-seconds:600}")
+    private long totalTimeoutSeconds;
+
+    @Value("${cognos.api.deploy.mapped-window-size:16MB}")
+    private DataSize mappedWindowSize;
+
+    /**
+     * Test connectivity to Cognos server. Completes with false rather than exceptionally.
+     */
+    public CompletableFuture<Boolean> testConnection(CognosServer server) {
+        CompletableFuture<SimpleHttpResponse> exchange = send(server, Method.GET, "/api/v1/configuration",
+                Map.of(), headers -> { }, null);
+
+        return linked(exchange, exchange.handle((response, ex) -> {
+            if (ex != null) {
+                log.error("Failed to test connection to server {}: {}", server.getServerName(), unwrap(ex).getMessage());
+                return false;
+            }
+            return response.getCode() == HttpStatus.OK.value();
+        }));
+    }
+
+    /**
+     * Get content inventory from Cognos server, unconditionally.
+     * NOTE: The endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
+     */
+    public CompletableFuture<Map<String, Object>> getContentInventory(CognosServer server) {
+        if (demoMode) {
+            log.info("Demo mode: Returning mock data for server {}", server.getServerName());
+            return CompletableFuture.completedFuture(CognosMockData.contentInventory());
+        }
+
+        CompletableFuture<SimpleHttpResponse> exchange = send(server, Method.GET, "/api/v1/content",
+                Map.of(), headers -> { }, null);
+
+        return failWith(exchange, exchange.thenApplyAsync(response -> parse(response.getBodyBytes())),
+                "Failed to fetch content inventory", server);
+    }
+
+    /**
+     * Fetches the content inventory as a map, unless it is unchanged since the last successful
+     * poll. Sends If-None-Match / If-Modified-Since from the validator cache and, when the server
+     * does not honour them, compares a SHA-256 hash of the response body instead.
+     */
+    public CompletableFuture<InventoryFetchResult> fetchContentInventory(CognosServer server) {
+        validatorCache.recordLookup();
+
+        if (demoMode) {
+            log.info("Demo mode: Returning mock data for server {}", server.getServerName());
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(CognosMockData.contentInventory());
+                return CompletableFuture.completedFuture(toFetchResult(server, body, new HttpHeaders()));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(new RuntimeException("Failed to fetch content inventory", e));
+            }
+        }
+
+        CompletableFuture<SimpleHttpResponse> exchange = send(server, Method.GET, "/api/v1/content", Map.of(),
+                headers -> validatorCache.applyConditionalHeaders(server.getId(), server.getBaseUrl(), headers),
+                null);
+
+        return failWith(exchange, exchange.thenApplyAsync(response -> {
+            if (response.getCode() == HttpStatus.NOT_MODIFIED.value()) {
+                validatorCache.recordNotModified();
+                return InventoryFetchResult.unchanged();
+            }
+            byte[] body = response.getBodyBytes() != null
+                    ? response.getBodyBytes() : "{}".getBytes(StandardCharsets.UTF_8);
+            return toFetchResult(server, body, toSpringHeaders(response.getHeaders()));
+        }), "Failed to fetch content inventory", server);
+    }
+
+    /**
+     * Streams the content inventory to the consumer in chunks of at most chunkSize items,
+     * parsing the response as it arrives instead of buffering it. The parser, and with it the
+     * consumer, runs on parseExecutor and reads the body through a bounded buffer: reading from
+     * the connection is paused while the parser falls behind. The result carries item counts
+     * per type, or is marked not modified when the server answers 304 to the cached validators
+     * (in which case the consumer is never called).
+     */
+    public CompletableFuture<InventoryFetchResult> streamContentInventory(
+            CognosServer server, int chunkSize, Consumer<List<CognosContentItem>> chunkConsumer,
+            Executor parseExecutor) {
+        validatorCache.recordLookup();
+
+        if (demoMode) {
+            log.info("Demo mode: Streaming mock data for server {}", server.getServerName());
+            return CompletableFuture.supplyAsync(() -> streamMockInventory(server, chunkSize, chunkConsumer),
+                    parseExecutor);
+        }
+
+        // This endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
+        CompletableFuture<Message<HttpResponse, Map<ContentInventory.ContentType, Integer>>> exchange =
+                send(server, Method.GET, "/api/v1/content", Map.of(), headers -> {
+                    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                    validatorCache.applyConditionalHeaders(server.getId(), server.getBaseUrl(), headers);
+                }, null, inventoryStreamConsumer(chunkSize, chunkConsumer, parseExecutor), Message::getHead);
+
+        return failWith(exchange, exchange.thenApply(response -> {
+            if (response.getHead().getCode() == HttpStatus.NOT_MODIFIED.value()) {
+                validatorCache.recordNotModified();
+                return InventoryFetchResult.unchanged();
+            }
+            HttpHeaders responseHeaders = toSpringHeaders(response.getHead().getHeaders());
+            InventoryValidatorCache.Validator validator = new InventoryValidatorCache.Validator(
+                    server.getBaseUrl(), responseHeaders.getETag(),
+                    responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED), null);
+            Map<ContentInventory.ContentType, Integer> counts = response.getBody() != null
+                    ? response.getBody() : CognosInventoryParser.emptyCounts();
+            return new InventoryFetchResult(false, counts, null, validator);
+        }), "Failed to fetch content inventory", server);
+    }
+
+    private InventoryFetchResult streamMockInventory(CognosServer server, int chunkSize,
+                                                     Consumer<List<CognosContentItem>> chunkConsumer) {
+        Map<String, Object> mock = CognosMockData.contentInventory();
+        String contentHash;
+        try {
+            contentHash = sha256(objectMapper.writeValueAsBytes(mock));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to hash mock content inventory", e);
+        }
+        InventoryValidatorCache.Validator cached = validatorCache.get(server.getId(), server.getBaseUrl());
+        if (cached != null && contentHash.equals(cached.getContentHash())) {
+            validatorCache.recordHashHit();
+            return InventoryFetchResult.unchanged();
+        }
+
+        List<CognosContentItem> items = CognosInventoryParser.fromResponse(mock);
+        Map<ContentInventory.ContentType, Integer> counts = CognosInventoryParser.emptyCounts();
+        items.forEach(item -> counts.merge(item.getContentType(), 1, Integer::sum));
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunkConsumer.accept(items.subList(i, Math.min(i + chunkSize, items.size())));
+        }
+        return new InventoryFetchResult(false, counts, null,
+                new InventoryValidatorCache.Validator(server.getBaseUrl(), null, null, contentHash));
+    }
+
+    /**
+     * Feeds the response body to {@link CognosInventoryParser} on parseExecutor. The body of an
+     * error response is skipped, not parsed; a 304 has none, so the parser is never started.
+     */
+    private static AsyncResponseConsumer<Message<HttpResponse, Map<ContentInventory.ContentType, Integer>>>
+            inventoryStreamConsumer(int chunkSize, Consumer<List<CognosContentItem>> chunkConsumer,
+                                    Executor parseExecutor) {
+        CompletableFuture<HttpResponse> head = new CompletableFuture<>();
+        AbstractClassicEntityConsumer<Map<ContentInventory.ContentType, Integer>> parser =
+                new AbstractClassicEntityConsumer<>(STREAM_BUFFER_SIZE, parseExecutor) {
+                    @Override
+                    protected Map<ContentInventory.ContentType, Integer> consumeData(
+                            ContentType contentType, InputStream body) throws IOException {
+                        if (head.join().getCode() >= 400) {
+                            body.transferTo(OutputStream.nullOutputStream());
+                            return null;
+                        }
+                        return CognosInventoryParser.parse(body, chunkSize, chunkConsumer);
+                    }
+                };
+
+        return new BasicResponseConsumer<>(parser) {
+            @Override
+            public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                        FutureCallback<Message<HttpResponse, Map<ContentInventory.ContentType, Integer>>> callback)
+                    throws HttpException, IOException {
+                // Seen by the parser, which is started from here
+                head.complete(response);
+                super.consumeResponse(response, entityDetails, context, callback);
+            }
+        };
+    }
+
+    /**
+     * Deploys content streamed from a file, without reading it into memory. See
+     * {@link MappedFileEntityProducer}.
+     */
+    public CompletableFuture<Void> deployContent(CognosServer server, Path artifact, String path) {
+        AsyncEntityProducer content;
+        try {
+            content = new MappedFileEntityProducer(artifact, mappedWindowSize.toBytes(),
+                    ContentType.APPLICATION_OCTET_STREAM);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to read deploy artifact", e));
+        }
+        return deploy(server, content, path);
+    }
+
+    private CompletableFuture<Void> deploy(CognosServer server, AsyncEntityProducer content, String path) {
+        // This endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
+        CompletableFuture<SimpleHttpResponse> exchange = send(server, Method.POST, "/api/v1/content/deploy",
+                Map.of("path", path), headers -> { }, content);
+
+        return failWith(exchange, exchange.thenAccept(response -> {
+            if (response.getCode() != HttpStatus.OK.value() && response.getCode() != HttpStatus.CREATED.value()) {
+                throw new RuntimeException("Deployment failed with status: " + response.getCode());
+            }
+            log.info("Successfully deployed content to server {} at path {}", server.getServerName(), path);
+        }), "Failed to deploy content", server);
+    }
+
+    /**
+     * Fetches one page of the content inventory, parsed into items. Not guarded by the
+     * circuit breaker: a paged fetch is guarded as a whole by its caller, so the pages it
+     * reads ahead do not compete with it for a half-open probe. Cancelling the returned
+     * future aborts the request.
+     */
+    CompletableFuture<List<CognosContentItem>> fetchContentInventoryPage(CognosServer server, long offset, int limit) {
+        // This endpoint is a placeholder - consult IBM Cognos Analytics 12.0 REST API docs
+        CompletableFuture<SimpleHttpResponse> exchange = exchange(server, Method.GET, "/api/v1/content",
+                Map.of("offset", String.valueOf(offset), "limit", String.valueOf(limit)),
+                headers -> headers.setAccept(List.of(MediaType.APPLICATION_JSON)), null);
+
+        return linked(exchange, exchange.thenApplyAsync(response -> {
+            List<CognosContentItem> items = new ArrayList<>(limit);
+            try {
+                byte[] body = response.getBodyBytes() != null ? response.getBodyBytes() : new byte[0];
+                CognosInventoryParser.parse(new ByteArrayInputStream(body), limit, items::addAll);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return items;
+        }));
+    }
+
+    /**
+     * Sends one request through the server's circuit breaker, see {@link #exchange}.
+     */
+    private CompletableFuture<SimpleHttpResponse> send(CognosServer server, Method method, String path,
+                                                       Map<String, String> query,
+                                                       Consumer<HttpHeaders> customizeHeaders,
+                                                       AsyncEntityProducer body) {
+        return send(server, method, path, query, customizeHeaders, body, SimpleResponseConsumer.create(),
+                response -> response);
+    }
+
+    private <T> CompletableFuture<T> send(CognosServer server, Method method, String path,
+                                          Map<String, String> query, Consumer<HttpHeaders> customizeHeaders,
+                                          AsyncEntityProducer body, AsyncResponseConsumer<T> responseConsumer,
+                                          Function<T, HttpResponse> head) {
+        try {
+            circuitBreaker.acquire(server);
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> result = exchange(server, method, path, query, customizeHeaders, body,
+                responseConsumer, head);
+        result.whenComplete((response, ex) -> {
+            if (ex == null) {
+                circuitBreaker.recordSuccess(server.getId());
+            } else {
+                circuitBreaker.recordFailure(server.getId(), unwrap(ex));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends one request. Query parameter values are encoded, and customizeHeaders may add to
+     * the authorization headers. Responses with an error status complete exceptionally with a
+     * {@link RestClientResponseException}. The body's producer sets the Content-Type; the one
+     * in headers is ignored.
+     *
+     * Never throws: a failure to build or start the request, e.g. to decrypt the API key, is
+     * returned as a failed future, so a caller that reserved a half-open probe records it and
+     * does not leave the probe reserved.
+     */
+    private CompletableFuture<SimpleHttpResponse> exchange(CognosServer server, Method method, String path,
+                                                           Map<String, String> query,
+                                                           Consumer<HttpHeaders> customizeHeaders,
+                                                           AsyncEntityProducer body) {
+        return exchange(server, method, path, query, customizeHeaders, body, SimpleResponseConsumer.create(),
+                response -> response);
+    }
+
+    /**
+     * Sends one request, handing the response to responseConsumer; head gives the status line
+     * and headers of what it produces. The body of an error response is kept only when it is
+     * consumed into a {@link SimpleHttpResponse}.
+     */
+    private <T> CompletableFuture<T> exchange(CognosServer server, Method method, String path,
+                                              Map<String, String> query, Consumer<HttpHeaders> customizeHeaders,
+                                              AsyncEntityProducer body, AsyncResponseConsumer<T> responseConsumer,
+                                              Function<T, HttpResponse> head) {
+        URI uri;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        Future<T> exchange;
+        try {
+            UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(server.getBaseUrl()).path(path);
+            query.keySet().forEach(name -> uriBuilder.queryParam(name, "{" + name + "}"));
+            uri = uriBuilder.encode().buildAndExpand(query).toUri();
+
+            HttpHeaders headers = createHeaders(decryptApiKey(server));
+            customizeHeaders.accept(headers);
+
+            AsyncRequestBuilder request = AsyncRequestBuilder.create(method.name()).setUri(uri);
+            headers.forEach((name, values) -> {
+                if (!HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                    values.forEach(value -> request.addHeader(name, value));
+                }
+            });
+            if (body != null) {
+                request.setEntity(body);
+            }
+
+            exchange = httpClient.getAsyncClient().execute(request.build(),
+                    responseConsumer, new FutureCallback<>() {
+                        @Override
+                        public void completed(T response) {
+                            HttpResponse status = head.apply(response);
+                            if (status.getCode() >= 400) {
+                                byte[] errorBody = response instanceof SimpleHttpResponse simple
+                                        ? simple.getBodyBytes() : null;
+                                result.completeExceptionally(new RestClientResponseException(
+                                        method + " " + path + " failed with status " + status.getCode(),
+                                        HttpStatusCode.valueOf(status.getCode()), status.getReasonPhrase(),
+                                        toSpringHeaders(status.getHeaders()), errorBody,
+                                        StandardCharsets.UTF_8));
+                            } else {
+                                result.complete(response);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            result.completeExceptionally(ex);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            result.cancel(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (totalTimeoutSeconds > 0) {
+            result.orTimeout(totalTimeoutSeconds, TimeUnit.SECONDS);
+        }
+        result.whenComplete((response, ex) -> {
+            Throwable failure = ex != null ? unwrap(ex) : null;
+            String status = response != null ? String.valueOf(head.apply(response).getCode())
+                    : failure instanceof RestClientResponseException responseException
+                    ? String.valueOf(responseException.getStatusCode().value())
+                    : CognosHttpClient.statusOf(failure);
+            httpClient.recordRequest(method.name(), uri, status, System.nanoTime() - start);
+
+            if (ex != null) {
+                // Cancelled or timed out: abort the exchange so its connection is released
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private InventoryFetchResult toFetchResult(CognosServer server, byte[] body, HttpHeaders responseHeaders) {
+        String contentHash = sha256(body);
+        InventoryValidatorCache.Validator cached = validatorCache.get(server.getId(), server.getBaseUrl());
+        if (cached != null && contentHash.equals(cached.getContentHash())) {
+            validatorCache.recordHashHit();
+            return InventoryFetchResult.unchanged();
+        }
+
+        InventoryValidatorCache.Validator validator = new InventoryValidatorCache.Validator(
+                server.getBaseUrl(), responseHeaders.getETag(),
+                responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED), contentHash);
+        return new InventoryFetchResult(false, null, parse(body), validator);
+    }
+
+    private Map<String, Object> parse(byte[] body) {
+        try {
+            return objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Maps a failure of the derived future to RuntimeException(message, cause), letting
+     * {@link CircuitOpenException} through as is, and links cancellation to the exchange.
+     */
+    private <T> CompletableFuture<T> failWith(CompletableFuture<?> exchange, CompletableFuture<T> derived,
+                                              String message, CognosServer server) {
+        return linked(exchange, derived.handle((value, ex) -> {
+            if (ex == null) {
+                return value;
+            }
+            Throwable cause = unwrap(ex);
+            if (cause instanceof CircuitOpenException circuitOpen) {
+                throw circuitOpen;
+            }
+            log.error("{} for server {}: {}", message, server.getServerName(), cause.getMessage());
+            throw new RuntimeException(message, cause);
+        }));
+    }
+
+    /**
+     * Cancelling the returned future cancels the HTTP exchange it was derived from.
+     */
+    private static <T> CompletableFuture<T> linked(CompletableFuture<?> exchange, CompletableFuture<T> derived) {
+        derived.whenComplete((value, ex) -> {
+            if (derived.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    private String decryptApiKey(CognosServer server) {
+        return encryptionService.decrypt(server.getApiKeyEncrypted());
+    }
+
+    static HttpHeaders createHeaders(String apiKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + apiKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
+    static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static HttpHeaders toSpringHeaders(Header[] headers) {
+        HttpHeaders springHeaders = new HttpHeaders();
+        for (Header header : headers) {
+            springHeaders.add(header.getName(), header.getValue());
+        }
+        return springHeaders;
+    }
+}
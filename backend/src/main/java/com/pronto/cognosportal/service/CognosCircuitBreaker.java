@@ -0,0 +1,224 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.exception.CircuitOpenException;
+import com.pronto.cognosportal.model.CognosServer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-server circuit breakers around calls to Cognos. After failure-threshold consecutive
+ * remote failures a server's circuit opens and calls fail fast until an exponentially
+ * growing, jittered backoff has passed. Then a single half-open probe is let through:
+ * success closes the circuit, failure re-opens it with a longer backoff.
+ */
+@Component
+@Slf4j
+public class CognosCircuitBreaker {
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Snapshot {
+        private CircuitState state;
+        private int consecutiveFailures;
+        private LocalDateTime openUntil;
+    }
+
+    private static final Snapshot CLOSED_SNAPSHOT = new Snapshot(CircuitState.CLOSED, 0, null);
+
+    @Value("${cognos.api.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cognos.api.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${cognos.api.circuit-breaker.base-backoff-seconds:60}")
+    private long baseBackoffSeconds;
+
+    @Value("${cognos.api.circuit-breaker.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${cognos.api.circuit-breaker.jitter-ratio:0.2}")
+    private double jitterRatio;
+
+    private final Map<Long, Breaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves a call to the server, throwing {@link CircuitOpenException} if its circuit is open.
+     */
+    public void acquire(CognosServer server) {
+        if (!enabled) {
+            return;
+        }
+        Breaker breaker = breakers.computeIfAbsent(server.getId(), id -> new Breaker());
+        if (!breaker.tryAcquire()) {
+            throw new CircuitOpenException(server.getServerName(), breaker.openUntil);
+        }
+    }
+
+    /**
+     * True if a call to the server would currently be let through. Does not reserve the
+     * half-open probe.
+     */
+    public boolean allowsRequest(Long serverId) {
+        Breaker breaker = breakers.get(serverId);
+        return !enabled || breaker == null || breaker.allowsRequest();
+    }
+
+    public void recordSuccess(Long serverId) {
+        Breaker breaker = breakers.get(serverId);
+        if (breaker != null) {
+            breaker.onSuccess();
+        }
+    }
+
+    /**
+     * Records a failed call. Only 5xx responses, I/O errors and timeouts count towards opening
+     * the circuit; anything else (a 4xx response, a database error while persisting, ...) just
+     * releases the call.
+     */
+    public void recordFailure(Long serverId, Throwable error) {
+        Breaker breaker = breakers.get(serverId);
+        if (breaker == null || error instanceof CircuitOpenException) {
+            return;
+        }
+        if (!isRemoteFailure(error)) {
+            breaker.release();
+            return;
+        }
+        breaker.onFailure();
+        if (breaker.state == CircuitState.OPEN) {
+            log.warn("Circuit opened for server {} until {} after {} consecutive failures",
+                    serverId, breaker.openUntil, breaker.consecutiveFailures);
+        }
+    }
+
+    /**
+     * Closes the server's circuit and forgets its failures, e.g. once it has been pointed at
+     * a new address or given a new API key. Outcomes are recorded by server, not by breaker:
+     * a call still in flight when the circuit is reset is recorded against nothing if it
+     * ends first, but against the new breaker if another call has created one by then.
+     */
+    public void reset(Long serverId) {
+        if (breakers.remove(serverId) != null) {
+            log.info("Circuit reset for server {}", serverId);
+        }
+    }
+
+    public Snapshot getSnapshot(Long serverId) {
+        Breaker breaker = breakers.get(serverId);
+        return breaker != null ? breaker.snapshot() : CLOSED_SNAPSHOT;
+    }
+
+    /**
+     * When the server may next be called, or null if it may be called now.
+     */
+    public LocalDateTime getRetryAt(Long serverId) {
+        Breaker breaker = breakers.get(serverId);
+        return breaker != null ? breaker.retryAt() : null;
+    }
+
+    /**
+     * 5xx responses, I/O errors and timeouts. A 4xx response means the server is up and
+     * answering, so it does not count.
+     */
+    private static boolean isRemoteFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long backoffSeconds(int openCount) {
+        long backoff = baseBackoffSeconds << Math.min(openCount - 1, 30);
+        backoff = backoff <= 0 ? maxBackoffSeconds : Math.min(backoff, maxBackoffSeconds);
+        long jitter = (long) (backoff * jitterRatio);
+        long offset = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+        return Math.max(1, backoff + offset);
+    }
+
+    private class Breaker {
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private int openCount;
+        private LocalDateTime openUntil;
+        private boolean probeInFlight;
+
+        synchronized boolean tryAcquire() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (LocalDateTime.now().isBefore(openUntil)) {
+                        return false;
+                    }
+                    state = CircuitState.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                default:
+                    if (probeInFlight) {
+                        return false;
+                    }
+                    probeInFlight = true;
+                    return true;
+            }
+        }
+
+        synchronized boolean allowsRequest() {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> !LocalDateTime.now().isBefore(openUntil);
+                case HALF_OPEN -> !probeInFlight;
+            };
+        }
+
+        synchronized void onSuccess() {
+            state = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            openCount = 0;
+            openUntil = null;
+            probeInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            probeInFlight = false;
+            if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                openCount++;
+                openUntil = LocalDateTime.now().plusSeconds(backoffSeconds(openCount));
+                state = CircuitState.OPEN;
+            }
+        }
+
+        synchronized void release() {
+            probeInFlight = false;
+        }
+
+        synchronized LocalDateTime retryAt() {
+            return state == CircuitState.OPEN && LocalDateTime.now().isBefore(openUntil) ? openUntil : null;
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(state, consecutiveFailures, openUntil);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.pronto.cognosportal.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.pronto.cognosportal.dto.CognosContentItem;
+import com.pronto.cognosportal.model.ContentInventory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Turns Cognos content inventory responses into typed content items.
+ * The streaming variant reads the JSON token by token and hands items on in
+ * chunks, so the full response is never held in memory.
+ */
+public final class CognosInventoryParser {
+
+    /**
+     * Maps the keys of the Cognos content response to inventory content types.
+     */
+    public static final Map<String, ContentInventory.ContentType> RESPONSE_SECTIONS = Map.of(
+            "reports", ContentInventory.ContentType.REPORT,
+            "dashboards", ContentInventory.ContentType.DASHBOARD,
+            "dataModules", ContentInventory.ContentType.DATA_MODULE,
+            "packages", ContentInventory.ContentType.PACKAGE
+    );
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CognosInventoryParser() {
+    }
+
+    /**
+     * Streams the items of a content response to the consumer in chunks of at most
+     * chunkSize items and returns the number of items seen per content type.
+     */
+    public static Map<ContentInventory.ContentType, Integer> parse(InputStream body, int chunkSize,
+                                                                   Consumer<List<CognosContentItem>> chunkConsumer)
+            throws IOException {
+        Map<ContentInventory.ContentType, Integer> counts = emptyCounts();
+        List<CognosContentItem> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object at the start of the content response");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                ContentInventory.ContentType type = RESPONSE_SECTIONS.get(parser.getCurrentName());
+                JsonToken value = parser.nextToken();
+                if (type == null || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    CognosContentItem item = readItem(parser, type);
+                    if (item == null) {
+                        continue;
+                    }
+                    counts.merge(type, 1, Integer::sum);
+                    chunk.add(item);
+                    if (chunk.size() >= chunkSize) {
+                        chunkConsumer.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+        return counts;
+    }
+
+    /**
+     * Converts an already deserialized content response into items.
+     */
+    public static List<CognosContentItem> fromResponse(Map<String, Object> response) {
+        List<CognosContentItem> items = new ArrayList<>();
+        if (response == null) {
+            return items;
+        }
+
+        for (Map.Entry<String, ContentInventory.ContentType> section : RESPONSE_SECTIONS.entrySet()) {
+            Object value = response.get(section.getKey());
+            if (!(value instanceof List)) {
+                continue;
+            }
+            for (Object element : (List<?>) value) {
+                if (!(element instanceof Map<?, ?> content) || content.get("path") == null) {
+                    continue;
+                }
+                String path = content.get("path").toString();
+                items.add(CognosContentItem.builder()
+                        .contentType(section.getValue())
+                        .name(Objects.toString(content.get("name"), path))
+                        .version(content.get("version") != null ? content.get("version").toString() : null)
+                        .path(path)
+                        .build());
+            }
+        }
+        return items;
+    }
+
+    public static Map<ContentInventory.ContentType, Integer> emptyCounts() {
+        Map<ContentInventory.ContentType, Integer> counts = new EnumMap<>(ContentInventory.ContentType.class);
+        for (ContentInventory.ContentType type : ContentInventory.ContentType.values()) {
+            counts.put(type, 0);
+        }
+        return counts;
+    }
+
+    private static CognosContentItem readItem(JsonParser parser, ContentInventory.ContentType type) throws IOException {
+        String name = null;
+        String version = null;
+        String path = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = parser.getText();
+                case "version" -> version = parser.getText();
+                case "path" -> path = parser.getText();
+                default -> {
+                }
+            }
+        }
+
+        if (path == null) {
+            return null;
+        }
+        return CognosContentItem.builder()
+                .contentType(type)
+                .name(name != null ? name : path)
+                .version(version)
+                .path(path)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.pronto.cognosportal.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mock Cognos responses returned in demo mode.
+ */
+final class CognosMockData {
+
+    private CognosMockData() {
+    }
+
+    /**
+     * Returns mock data for demo/testing purposes
+     */
+    static Map<String, Object> contentInventory() {
+        Map<String, Object> inventory = new HashMap<>();
+
+        // Mock reports
+        List<Map<String, String>> reports = new ArrayList<>();
+        reports.add(createMockContent("Sales Report Q4", "1.2.0", "/Reports/Sales"));
+        reports.add(createMockContent("Financial Overview", "2.1.0", "/Reports/Finance"));
+        reports.add(createMockContent("Customer Analytics", "1.0.5", "/Reports/Analytics"));
+
+        // Mock dashboards
+        List<Map<String, String>> dashboards = new ArrayList<>();
+        dashboards.add(createMockContent("Executive Dashboard", "3.0.0", "/Dashboards/Executive"));
+        dashboards.add(createMockContent("Operations Dashboard", "2.5.1", "/Dashboards/Ops"));
+
+        // Mock data modules
+        List<Map<String, String>> dataModules = new ArrayList<>();
+        dataModules.add(createMockContent("Sales Data", "1.1.0", "/Data/Sales"));
+        dataModules.add(createMockContent("Customer Data", "1.3.2", "/Data/Customer"));
+
+        inventory.put("reports", reports);
+        inventory.put("dashboards", dashboards);
+        inventory.put("dataModules", dataModules);
+
+        return inventory;
+    }
+
+    private static Map<String, String> createMockContent(String name, String version, String path) {
+        Map<String, String> content = new HashMap<>();
+        content.put("name", name);
+        content.put("version", version);
+        content.put("path", path);
+        return content;
+    }
+}
@@ -0,0 +1,249 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.dto.FleetPollSummary;
+import com.pronto.cognosportal.exception.CircuitOpenException;
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.repository.CognosServerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the whole fleet in parallel, bounded by polling.fleet.max-concurrency,
+ * and keeps a summary of each run (timings and per-server outcome).
+ */
+@Service
+@Slf4j
+public class FleetPollService {
+
+    public static final String TRIGGER_MANUAL = "MANUAL";
+    public static final String TRIGGER_ADAPTIVE = "ADAPTIVE";
+
+    private final CognosServerRepository serverRepository;
+    private final PollingService pollingService;
+    private final PollLeaseService pollLeaseService;
+    private final JobQueueService jobQueueService;
+    private final Executor fleetPollExecutor;
+
+    @Value("${polling.fleet.max-concurrency:10}")
+    private int maxConcurrency;
+
+    @Value("${polling.fleet.run-history-size:20}")
+    private int runHistorySize;
+
+    private final Deque<FleetPollRun> recentRuns = new LinkedList<>();
+    private FleetPollRun activeRun;
+
+    public FleetPollService(CognosServerRepository serverRepository,
+                            PollingService pollingService,
+                            PollLeaseService pollLeaseService,
+                            JobQueueService jobQueueService,
+                            @Qualifier("fleetPollExecutor") Executor fleetPollExecutor) {
+        this.serverRepository = serverRepository;
+        this.pollingService = pollingService;
+        this.pollLeaseService = pollLeaseService;
+        this.jobQueueService = jobQueueService;
+        this.fleetPollExecutor = fleetPollExecutor;
+    }
+
+    /**
+     * Queues a poll of every active server on the durable job queue, so a scheduled run
+     * interrupted by a restart is picked up where it left off.
+     */
+    @Scheduled(cron = "${polling.schedule.cron}")
+    public void scheduledPollAllServers() {
+        List<Long> serverIds = serverRepository.findByIsActiveTrue().stream()
+                .map(CognosServer::getId)
+                .toList();
+        int queued = jobQueueService.enqueuePolls(serverIds, JobQueueService.PRIORITY_SCHEDULED);
+        log.info("Scheduled polling queued {} of {} active servers (others already queued)",
+                queued, serverIds.size());
+    }
+
+    /**
+     * Starts a fleet poll without waiting for it. If a run is already in progress
+     * its summary is returned instead of starting a second one. Servers another node
+     * is polling, or has polled since this run started, are left out.
+     */
+    public FleetPollSummary startFleetPoll(String trigger) {
+        return startRun(trigger).toSummary();
+    }
+
+    /**
+     * Starts a run over the given servers only. Unlike a whole-fleet poll this may run
+     * alongside other runs; callers are responsible for not submitting a server twice.
+     */
+    public synchronized FleetPollSummary pollServers(String trigger, List<CognosServer> servers) {
+        return submitRun(trigger, servers).toSummary();
+    }
+
+    public synchronized Optional<FleetPollSummary> getRun(String runId) {
+        return recentRuns.stream()
+                .filter(run -> run.runId.equals(runId))
+                .findFirst()
+                .map(FleetPollRun::toSummary);
+    }
+
+    public synchronized List<FleetPollSummary> getRecentRuns() {
+        return recentRuns.stream().map(FleetPollRun::toSummary).toList();
+    }
+
+    private synchronized FleetPollRun startRun(String trigger) {
+        if (activeRun != null && !activeRun.completion.isDone()) {
+            log.info("Fleet poll {} already in progress, not starting another", activeRun.runId);
+            return activeRun;
+        }
+
+        activeRun = submitRun(trigger, pollLeaseService.claimNotPolledSince(LocalDateTime.now()));
+        return activeRun;
+    }
+
+    private FleetPollRun submitRun(String trigger, List<CognosServer> servers) {
+        FleetPollRun run = new FleetPollRun(UUID.randomUUID().toString(), trigger, servers.size(), maxConcurrency);
+        log.info("Starting {} fleet poll {} of {} servers (max concurrency {})", trigger,
+                run.runId, servers.size(), maxConcurrency);
+
+        CompletableFuture<?>[] futures = servers.stream()
+                .map(server -> pollOne(run, server))
+                .toArray(CompletableFuture[]::new);
+
+        recentRuns.addFirst(run);
+        while (recentRuns.size() > runHistorySize) {
+            recentRuns.removeLast();
+        }
+
+        run.completion = CompletableFuture.allOf(futures).whenComplete((ignored, ex) -> {
+            run.finish();
+            log.info("Fleet poll {} completed in {} ms (Success: {}, Failed: {}, Skipped: {})",
+                    run.runId, run.durationMs(), run.successCount.get(), run.failureCount.get(),
+                    run.skippedCount.get());
+        });
+        return run;
+    }
+
+    /**
+     * Polls one server on the fleet executor. If the server is already being polled the
+     * run waits on that poll's result without holding an executor thread. The server's
+     * poll lease, if this node holds one, is released once the outcome is recorded.
+     */
+    private CompletableFuture<Void> pollOne(FleetPollRun run, CognosServer server) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> pollingService.pollOrJoin(server), fleetPollExecutor)
+                .thenCompose(PollTicket::getResult)
+                .handle((polled, ex) -> {
+                    releaseLease(server);
+                    if (ex != null) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof CircuitOpenException) {
+                            run.recordSkipped(server, cause.getMessage(), start);
+                            return null;
+                        }
+                        log.error("Fleet poll {} failed for server {}: {}", run.runId, server.getServerName(),
+                                cause.getMessage());
+                        run.record(server, CognosServer.PollStatus.FAILED, cause.getMessage(), start);
+                    } else {
+                        run.record(server, polled.getPollStatus(), polled.getLastError(), start);
+                    }
+                    return null;
+                });
+    }
+
+    private void releaseLease(CognosServer server) {
+        try {
+            pollLeaseService.release(server.getId());
+        } catch (Exception e) {
+            // Not fatal: the lease expires on its own
+            log.warn("Failed to release poll lease on server {}: {}", server.getServerName(), e.getMessage());
+        }
+    }
+
+    private static class FleetPollRun {
+        private final String runId;
+        private final String trigger;
+        private final int totalServers;
+        private final int maxConcurrency;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger failureCount = new AtomicInteger();
+        private final AtomicInteger skippedCount = new AtomicInteger();
+        private final ConcurrentLinkedQueue<FleetPollSummary.ServerPollResult> results = new ConcurrentLinkedQueue<>();
+        private volatile LocalDateTime completedAt;
+        private volatile CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        FleetPollRun(String runId, String trigger, int totalServers, int maxConcurrency) {
+            this.runId = runId;
+            this.trigger = trigger;
+            this.totalServers = totalServers;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        void record(CognosServer server, CognosServer.PollStatus status, String error, long startNanos) {
+            if (status == CognosServer.PollStatus.SUCCESS) {
+                successCount.incrementAndGet();
+            } else {
+                failureCount.incrementAndGet();
+            }
+            addResult(server, status != null ? status.name() : null, error, startNanos);
+        }
+
+        /**
+         * Records a server that was not polled because its circuit is open.
+         */
+        void recordSkipped(CognosServer server, String reason, long startNanos) {
+            skippedCount.incrementAndGet();
+            addResult(server, PortalMetrics.OUTCOME_SKIPPED, reason, startNanos);
+        }
+
+        private void addResult(CognosServer server, String status, String error, long startNanos) {
+            results.add(FleetPollSummary.ServerPollResult.builder()
+                    .serverId(server.getId())
+                    .serverName(server.getServerName())
+                    .status(status)
+                    .error(error)
+                    .durationMs((System.nanoTime() - startNanos) / 1_000_000)
+                    .build());
+        }
+
+        void finish() {
+            completedAt = LocalDateTime.now();
+        }
+
+        long durationMs() {
+            LocalDateTime end = completedAt != null ? completedAt : LocalDateTime.now();
+            return Duration.between(startedAt, end).toMillis();
+        }
+
+        FleetPollSummary toSummary() {
+            return FleetPollSummary.builder()
+                    .runId(runId)
+                    .trigger(trigger)
+                    .status(completedAt != null ? "COMPLETED" : "IN_PROGRESS")
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .durationMs(durationMs())
+                    .totalServers(totalServers)
+                    .completedServers(results.size())
+                    .successCount(successCount.get())
+                    .failureCount(failureCount.get())
+                    .skippedCount(skippedCount.get())
+                    .maxConcurrency(maxConcurrency)
+                    .results(new ArrayList<>(results))
+                    .build();
+        }
+    }
+}
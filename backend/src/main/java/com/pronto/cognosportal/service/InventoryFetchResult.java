@@ -0,0 +1,25 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.ContentInventory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Outcome of fetching a server's content inventory. When notModified is set the server
+ * reported (or hashed to) the same inventory as the last successful poll and nothing
+ * else is populated.
+ */
+@Data
+@AllArgsConstructor
+public class InventoryFetchResult {
+    private boolean notModified;
+    private Map<ContentInventory.ContentType, Integer> counts;
+    private Map<String, Object> response;
+    private InventoryValidatorCache.Validator validator;
+
+    public static InventoryFetchResult unchanged() {
+        return new InventoryFetchResult(true, null, null, null);
+    }
+}
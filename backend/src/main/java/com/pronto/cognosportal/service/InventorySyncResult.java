@@ -0,0 +1,36 @@
+package com.pronto.cognosportal.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts of inventory rows touched by one content inventory sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySyncResult {
+    private String mode;
+    private int added;
+    private int changed;
+    private int removed;
+    private int unchanged;
+
+    public boolean hasChanges() {
+        return added > 0 || changed > 0 || removed > 0;
+    }
+
+    public Map<String, Object> toDetails() {
+        Map<String, Object> details = new HashMap<>();
+        details.put("syncMode", mode);
+        details.put("added", added);
+        details.put("changed", changed);
+        details.put("removed", removed);
+        details.put("unchanged", unchanged);
+        return details;
+    }
+}
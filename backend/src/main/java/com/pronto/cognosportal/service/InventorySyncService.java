@@ -0,0 +1,288 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.dto.CognosContentItem;
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.ContentInventory;
+import com.pronto.cognosportal.model.StagedContentInventory;
+import com.pronto.cognosportal.repository.ContentInventoryRepository;
+import com.pronto.cognosportal.repository.StagedContentInventoryRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes a polled content inventory into server_content_inventory.
+ * In delta mode only rows whose type/path/version/name changed are written;
+ * full mode replaces every row for the server. A full sync stages its rows in
+ * server_content_inventory_staging and swaps them in when it finishes, so its chunks can be
+ * committed one by one like those of a delta sync without the inventory being seen half
+ * replaced.
+ *
+ * Items arrive in chunks through an {@link InventorySyncSession}, so callers can
+ * persist a large inventory while it is still being read from the server. Each chunk is
+ * flushed as JDBC batches and its rows detached, so the persistence context does not grow
+ * with the inventory.
+ *
+ * Memory is not constant, though: a session keeps the key (type and path) of every item it
+ * has seen, to drop duplicates and, in delta mode, to find the stored rows that were not
+ * reported. That set is O(n) in the inventory size, roughly 100-200 bytes per item, which
+ * is far less than the items but still tens of MB for an inventory of 500k items.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventorySyncService {
+
+    public static final String MODE_DELTA = "delta";
+    public static final String MODE_FULL = "full";
+
+    private final ContentInventoryRepository contentInventoryRepository;
+    private final StagedContentInventoryRepository stagedInventoryRepository;
+    private final EntityManager entityManager;
+
+    @Value("${polling.inventory.sync-mode:" + MODE_DELTA + "}")
+    private String syncMode;
+
+    @Value("${polling.inventory.chunk-size:1000}")
+    private int chunkSize;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Syncs an already deserialized content response in one go.
+     */
+    @Transactional
+    public InventorySyncResult sync(CognosServer server, Map<String, Object> response) {
+        InventorySyncSession session = openSession(server);
+        List<CognosContentItem> items = CognosInventoryParser.fromResponse(response);
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            session.apply(items.subList(i, Math.min(i + chunkSize, items.size())));
+        }
+        return session.finish();
+    }
+
+    /**
+     * Starts a chunked sync. Nothing is written until the first chunk is applied or the
+     * session is finished, through {@link #apply} and {@link #finish}.
+     */
+    public InventorySyncSession openSession(CognosServer server) {
+        return new InventorySyncSession(server, MODE_FULL.equalsIgnoreCase(syncMode));
+    }
+
+    /**
+     * Applies a chunk in a transaction of its own, or in the caller's if one is open.
+     * Committed chunks of a delta sync that fails later stay; the next sync reconciles them.
+     */
+    @Transactional
+    public void apply(InventorySyncSession session, List<CognosContentItem> chunk) {
+        session.apply(chunk);
+    }
+
+    @Transactional
+    public InventorySyncResult finish(InventorySyncSession session) {
+        return session.finish();
+    }
+
+    /**
+     * Drops what an unfinished full sync has staged.
+     */
+    @Transactional
+    public void discard(InventorySyncSession session) {
+        session.discard();
+    }
+
+    public class InventorySyncSession {
+
+        private final CognosServer server;
+        private final boolean full;
+        // Keys of all items seen so far, so grows with the inventory
+        private final Set<String> seenKeys = new HashSet<>();
+        private final LocalDateTime syncTime = LocalDateTime.now();
+        private final String syncId = UUID.randomUUID().toString();
+        private InventorySyncResult result;
+        private int added;
+        private int changed;
+        private int removed;
+        private int unchanged;
+
+        private InventorySyncSession(CognosServer server, boolean full) {
+            this.server = server;
+            this.full = full;
+        }
+
+        /**
+         * The counts of the finished sync, or null if it has not been finished.
+         */
+        public InventorySyncResult getResult() {
+            return result;
+        }
+
+        public void apply(List<CognosContentItem> chunk) {
+            List<CognosContentItem> items = new ArrayList<>(chunk.size());
+            for (CognosContentItem item : chunk) {
+                // Keep the first occurrence if the server reports the same item twice
+                if (seenKeys.add(item.key())) {
+                    items.add(item);
+                }
+            }
+            if (items.isEmpty()) {
+                return;
+            }
+
+            if (full) {
+                List<StagedContentInventory> rows = stagedInventoryRepository.saveAll(
+                        items.stream().map(this::toStagedEntity).toList());
+                added += items.size();
+                flushAndDetach(rows);
+                return;
+            }
+
+            List<String> paths = items.stream().map(CognosContentItem::getPath).distinct().toList();
+            Map<String, ContentInventory> stored = new HashMap<>();
+            List<ContentInventory> toDelete = new ArrayList<>();
+            for (ContentInventory row : contentInventoryRepository.findByServerIdAndContentPathIn(server.getId(), paths)) {
+                if (stored.putIfAbsent(key(row), row) != null) {
+                    toDelete.add(row);
+                }
+            }
+
+            List<ContentInventory> toSave = new ArrayList<>();
+            for (CognosContentItem item : items) {
+                ContentInventory current = stored.get(item.key());
+                if (current == null) {
+                    toSave.add(toEntity(item));
+                    added++;
+                } else if (!Objects.equals(current.getContentVersion(), item.getVersion())
+                        || !Objects.equals(current.getContentName(), item.getName())) {
+                    current.setContentVersion(item.getVersion());
+                    current.setContentName(item.getName());
+                    current.setLastUpdated(syncTime);
+                    toSave.add(current);
+                    changed++;
+                } else {
+                    unchanged++;
+                }
+            }
+
+            if (!toDelete.isEmpty()) {
+                contentInventoryRepository.deleteAllInBatch(toDelete);
+                removed += toDelete.size();
+            }
+            if (!toSave.isEmpty()) {
+                contentInventoryRepository.saveAll(toSave);
+            }
+            // Changed rows are in toSave as well as in stored, and were flushed with the new ones
+            flushAndDetach(toSave);
+            stored.values().forEach(entityManager::detach);
+            toDelete.forEach(entityManager::detach);
+        }
+
+        /**
+         * Removes stored rows that were not reported in this sync, or in full mode swaps the
+         * staged rows in, and returns the counts.
+         */
+        public InventorySyncResult finish() {
+            if (full) {
+                removed = contentInventoryRepository.countByServerId(server.getId());
+                contentInventoryRepository.deleteByServerId(server.getId());
+                stagedInventoryRepository.promote(syncId);
+                stagedInventoryRepository.deleteByServerId(server.getId());
+            } else {
+                long afterId = 0L;
+                List<ContentInventory> page;
+                do {
+                    page = contentInventoryRepository.findByServerIdAfterId(server.getId(), afterId,
+                            PageRequest.of(0, chunkSize));
+                    List<ContentInventory> stale = page.stream()
+                            .filter(row -> !seenKeys.contains(key(row)))
+                            .toList();
+                    if (!stale.isEmpty()) {
+                        contentInventoryRepository.deleteAllInBatch(stale);
+                        removed += stale.size();
+                    }
+                    page.forEach(entityManager::detach);
+                    if (!page.isEmpty()) {
+                        afterId = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == chunkSize);
+            }
+
+            // Deploys of the same artifact are skipped only while the content is unchanged
+            contentInventoryRepository.forgetChangedArtifacts(server.getId());
+            contentInventoryRepository.confirmDeployedArtifacts(server.getId());
+
+            result = new InventorySyncResult(full ? MODE_FULL : MODE_DELTA,
+                    added, changed, removed, unchanged);
+            log.debug("Content inventory synced for server {}: {}", server.getServerName(), result);
+            return result;
+        }
+
+        /**
+         * True while a full sync has rows staged that have not been swapped in.
+         */
+        public boolean hasStagedRows() {
+            return full && result == null && added > 0;
+        }
+
+        public void discard() {
+            if (hasStagedRows()) {
+                stagedInventoryRepository.deleteBySyncId(syncId);
+            }
+        }
+
+        private ContentInventory toEntity(CognosContentItem item) {
+            return ContentInventory.builder()
+                    .server(server)
+                    .contentType(item.getContentType())
+                    .contentName(item.getName())
+                    .contentVersion(item.getVersion())
+                    .contentPath(item.getPath())
+                    .lastUpdated(syncTime)
+                    .build();
+        }
+
+        private StagedContentInventory toStagedEntity(CognosContentItem item) {
+            return StagedContentInventory.builder()
+                    .syncId(syncId)
+                    .serverId(server.getId())
+                    .contentType(item.getContentType())
+                    .contentName(item.getName())
+                    .contentVersion(item.getVersion())
+                    .contentPath(item.getPath())
+                    .lastUpdated(syncTime)
+                    .build();
+        }
+    }
+
+    /**
+     * Writes pending changes to the rows, then drops them from the persistence context.
+     * Only the sync's own rows are detached; the caller's entities stay managed.
+     */
+    private void flushAndDetach(Collection<?> rows) {
+        if (!rows.isEmpty()) {
+            entityManager.flush();
+            rows.forEach(entityManager::detach);
+        }
+    }
+
+    private static String key(ContentInventory row) {
+        return row.getContentType() + "|" + row.getContentPath();
+    }
+}
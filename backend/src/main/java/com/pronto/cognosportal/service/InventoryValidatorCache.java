@@ -0,0 +1,109 @@
+package com.pronto.cognosportal.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers, per server, the validators (ETag, Last-Modified, content hash) of the last
+ * inventory that was successfully persisted, so unchanged inventories can be skipped.
+ */
+@Component
+@Slf4j
+public class InventoryValidatorCache {
+
+    private final Map<Long, Validator> validators = new ConcurrentHashMap<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong notModifiedHits = new AtomicLong();
+    private final AtomicLong hashHits = new AtomicLong();
+
+    @Data
+    @AllArgsConstructor
+    public static class Validator {
+        private String baseUrl;
+        private String etag;
+        private String lastModified;
+        private String contentHash;
+    }
+
+    public Validator get(Long serverId, String baseUrl) {
+        Validator validator = validators.get(serverId);
+        // A changed base URL means a different server behind the same id
+        return validator != null && validator.getBaseUrl().equals(baseUrl) ? validator : null;
+    }
+
+    /**
+     * Adds If-None-Match / If-Modified-Since headers for the server's cached validator.
+     */
+    public void applyConditionalHeaders(Long serverId, String baseUrl, HttpHeaders headers) {
+        Validator validator = get(serverId, baseUrl);
+        if (validator == null) {
+            return;
+        }
+        if (validator.getEtag() != null) {
+            headers.setIfNoneMatch(validator.getEtag());
+        }
+        if (validator.getLastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, validator.getLastModified());
+        }
+    }
+
+    public void recordLookup() {
+        lookups.incrementAndGet();
+    }
+
+    public void recordNotModified() {
+        notModifiedHits.incrementAndGet();
+    }
+
+    public void recordHashHit() {
+        hashHits.incrementAndGet();
+    }
+
+    /**
+     * Stores the validator once the current transaction commits, so a poll whose
+     * persistence rolls back is fetched in full next time.
+     */
+    public void storeAfterCommit(Long serverId, Validator validator) {
+        if (validator == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    validators.put(serverId, validator);
+                }
+            });
+        } else {
+            validators.put(serverId, validator);
+        }
+    }
+
+    public void evict(Long serverId) {
+        validators.remove(serverId);
+    }
+
+    public Map<String, Object> getStats() {
+        long total = lookups.get();
+        long hits = notModifiedHits.get() + hashHits.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedServers", validators.size());
+        stats.put("lookups", total);
+        stats.put("notModifiedHits", notModifiedHits.get());
+        stats.put("hashHits", hashHits.get());
+        stats.put("misses", total - hits);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        return stats;
+    }
+}
@@ -0,0 +1,188 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.Job;
+import com.pronto.cognosportal.repository.JobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent queue of polls, bulk deploy targets and connectivity tests. Queued work
+ * survives restarts: workers claim jobs in batches with SELECT ... FOR UPDATE SKIP LOCKED,
+ * keep a lock on them while they run, and jobs whose node died are requeued once
+ * their lock expires. Failed jobs are retried with exponential backoff up to their
+ * max attempts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobQueueService {
+
+    public static final int PRIORITY_INTERACTIVE = 100;
+    public static final int PRIORITY_DEPLOY = 50;
+    public static final int PRIORITY_SCHEDULED = 0;
+
+    private final JobRepository jobRepository;
+    private final PollLeaseService pollLeaseService;
+
+    @Value("${jobs.lock-seconds:300}")
+    private long lockSeconds;
+
+    @Value("${jobs.retry.base-delay-seconds:60}")
+    private long retryBaseDelaySeconds;
+
+    @Value("${jobs.deploy.max-attempts:3}")
+    private int deployMaxAttempts;
+
+    /**
+     * Jobs this node is running, kept locked by {@link #renewLocks()}.
+     */
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Queues a poll of each server, unless one is already queued or running for it.
+     */
+    @Transactional
+    public int enqueuePolls(List<Long> serverIds, int priority) {
+        int queued = 0;
+        for (Long serverId : serverIds) {
+            queued += jobRepository.insertPollIfAbsent(serverId, priority);
+        }
+        return queued;
+    }
+
+    @Transactional
+    public List<Job> enqueueDeployTargets(Long bulkOperationId, Long[] serverIds) {
+        List<Job> jobs = new ArrayList<>(serverIds.length);
+        for (Long serverId : serverIds) {
+            jobs.add(newJob(Job.JobType.DEPLOY_TARGET, serverId, PRIORITY_DEPLOY, deployMaxAttempts)
+                    .bulkOperationId(bulkOperationId)
+                    .build());
+        }
+        return jobRepository.saveAll(jobs);
+    }
+
+    @Transactional
+    public Job enqueueConnectivityTest(Long serverId) {
+        return jobRepository.save(newJob(Job.JobType.CONNECTIVITY_TEST, serverId, PRIORITY_INTERACTIVE, 1).build());
+    }
+
+    /**
+     * Claims up to limit runnable jobs for this node, highest priority first.
+     */
+    @Transactional
+    public List<Job> claim(int limit) {
+        List<Long> ids = jobRepository.lockRunnable(limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        jobRepository.markRunning(ids, pollLeaseService.getNodeId(), lockSeconds);
+        runningJobs.addAll(ids);
+        return jobRepository.findAllById(ids);
+    }
+
+    @Transactional
+    public void succeed(Job job, String outcome) {
+        runningJobs.remove(job.getId());
+        finish(job, Job.JobStatus.SUCCEEDED, outcome);
+    }
+
+    /**
+     * Records a failed attempt. Returns true if the job was requeued for another attempt,
+     * false if it has failed for good.
+     */
+    @Transactional
+    public boolean fail(Job job, String error) {
+        runningJobs.remove(job.getId());
+        if (job.getAttempts() < job.getMaxAttempts()) {
+            long delay = retryBaseDelaySeconds << Math.min(job.getAttempts() - 1, 10);
+            job.setStatus(Job.JobStatus.QUEUED);
+            job.setScheduledAt(LocalDateTime.now().plusSeconds(delay));
+            job.setLockedBy(null);
+            job.setLockedUntil(null);
+            job.setOutcome("Attempt " + job.getAttempts() + " failed: " + error);
+            jobRepository.save(job);
+            log.info("Job {} ({}) failed attempt {}/{}, retrying in {} s", job.getId(), job.getJobType(),
+                    job.getAttempts(), job.getMaxAttempts(), delay);
+            return true;
+        }
+        finish(job, Job.JobStatus.FAILED, error);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.renew-interval-ms:60000}")
+    @Transactional
+    public void renewLocks() {
+        List<Long> ids = List.copyOf(runningJobs);
+        if (!ids.isEmpty()) {
+            jobRepository.renewLocks(ids, pollLeaseService.getNodeId(), lockSeconds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.recovery-interval-ms:60000}")
+    @Transactional
+    public void requeueExpired() {
+        int requeued = jobRepository.requeueExpired();
+        if (requeued > 0) {
+            log.warn("Requeued {} jobs whose worker stopped renewing them", requeued);
+        }
+    }
+
+    public Job getJob(Long id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    public List<Job> getRecentJobs(Job.JobStatus status) {
+        return status != null
+                ? jobRepository.findTop100ByStatusOrderByIdDesc(status)
+                : jobRepository.findTop100ByOrderByIdDesc();
+    }
+
+    /**
+     * Job counts by type and status, e.g. {POLL: {QUEUED: 120, RUNNING: 10}}.
+     */
+    public Map<String, Map<String, Long>> getQueueDepth() {
+        Map<String, Map<String, Long>> depth = new HashMap<>();
+        for (Object[] row : jobRepository.countByTypeAndStatus()) {
+            depth.computeIfAbsent(row[0].toString(), type -> new HashMap<>())
+                    .put(row[1].toString(), (Long) row[2]);
+        }
+        return depth;
+    }
+
+    public int getRunningCount() {
+        return runningJobs.size();
+    }
+
+    private void finish(Job job, Job.JobStatus status, String outcome) {
+        job.setStatus(status);
+        job.setOutcome(outcome);
+        job.setLockedBy(null);
+        job.setLockedUntil(null);
+        job.setCompletedAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+
+    private static Job.JobBuilder newJob(Job.JobType type, Long serverId, int priority, int maxAttempts) {
+        return Job.builder()
+                .jobType(type)
+                .status(Job.JobStatus.QUEUED)
+                .priority(priority)
+                .serverId(serverId)
+                .attempts(0)
+                .maxAttempts(maxAttempts)
+                .scheduledAt(LocalDateTime.now());
+    }
+}
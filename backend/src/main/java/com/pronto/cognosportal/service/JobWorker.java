@@ -0,0 +1,198 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.exception.CircuitOpenException;
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.Job;
+import com.pronto.cognosportal.repository.CognosServerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs queued jobs on this node. Each tick claims as many jobs as there are free worker
+ * slots (at most jobs.worker.batch-size) and runs them on the job executor. The number of
+ * slots can be lowered at runtime, down to zero to pause this node's workers, and raised
+ * again up to jobs.worker.concurrency.
+ */
+@Service
+@Slf4j
+public class JobWorker {
+
+    private final JobQueueService jobQueueService;
+    private final PollingService pollingService;
+    private final PollLeaseService pollLeaseService;
+    private final BulkOperationService bulkOperationService;
+    private final CognosApiService cognosApiService;
+    private final CognosServerRepository serverRepository;
+    private final Executor jobExecutor;
+
+    @Value("${jobs.worker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jobs.worker.batch-size:20}")
+    private int batchSize;
+
+    private final int maxConcurrency;
+    private volatile int concurrency;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    public JobWorker(JobQueueService jobQueueService,
+                     PollingService pollingService,
+                     PollLeaseService pollLeaseService,
+                     BulkOperationService bulkOperationService,
+                     CognosApiService cognosApiService,
+                     CognosServerRepository serverRepository,
+                     @Qualifier("jobExecutor") Executor jobExecutor,
+                     MeterRegistry meterRegistry,
+                     @Value("${jobs.worker.concurrency:10}") int concurrency) {
+        this.jobQueueService = jobQueueService;
+        this.pollingService = pollingService;
+        this.pollLeaseService = pollLeaseService;
+        this.bulkOperationService = bulkOperationService;
+        this.cognosApiService = cognosApiService;
+        this.serverRepository = serverRepository;
+        this.jobExecutor = jobExecutor;
+        this.maxConcurrency = concurrency;
+        this.concurrency = concurrency;
+
+        Gauge.builder("jobs.worker.active", this, JobWorker::getActiveCount)
+                .description("Jobs running on this node")
+                .register(meterRegistry);
+        Gauge.builder("jobs.worker.concurrency", this, JobWorker::getConcurrency)
+                .description("Job slots on this node")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.worker.poll-interval-ms:2000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+
+        int free = concurrency - active.get();
+        if (free <= 0) {
+            return;
+        }
+
+        List<Job> jobs = jobQueueService.claim(Math.min(free, batchSize));
+        for (Job job : jobs) {
+            active.incrementAndGet();
+            try {
+                jobExecutor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Executor rejected the job; its lock expires and it is requeued
+                active.decrementAndGet();
+                log.error("Could not start job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 0 || concurrency > maxConcurrency) {
+            throw new RuntimeException("Concurrency must be between 0 and " + maxConcurrency);
+        }
+        log.info("Job worker concurrency changed from {} to {}", this.concurrency, concurrency);
+        this.concurrency = concurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    private void run(Job job) {
+        try {
+            if (job.getAttempts() > job.getMaxAttempts()) {
+                // Requeued after its worker died more often than it may be attempted
+                throw new RuntimeException("Gave up after " + (job.getAttempts() - 1) + " attempts");
+            }
+            String outcome = switch (job.getJobType()) {
+                case POLL -> poll(job);
+                case DEPLOY_TARGET -> deployTarget(job);
+                case CONNECTIVITY_TEST -> testConnection(job);
+            };
+            jobQueueService.succeed(job, outcome);
+        } catch (Exception e) {
+            log.error("Job {} ({}) for server {} failed: {}", job.getId(), job.getJobType(),
+                    job.getServerId(), e.getMessage());
+            fail(job, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private void fail(Job job, String error) {
+        try {
+            if (job.getJobType() == Job.JobType.DEPLOY_TARGET) {
+                bulkOperationService.failTarget(job, error);
+            } else {
+                jobQueueService.fail(job, error);
+            }
+        } catch (Exception e) {
+            log.error("Failed to record failure of job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Polls through the server's poll lease, so a queued poll never overlaps a poll of the
+     * same server by the adaptive scheduler on any node.
+     */
+    private String poll(Job job) {
+        Optional<CognosServer> leased = pollLeaseService.claimServer(job.getServerId());
+        if (leased.isEmpty()) {
+            return "Skipped: server is already being polled";
+        }
+        try {
+            CognosServer polled = pollingService.pollOrJoin(leased.get()).getResult().join();
+            if (polled.getPollStatus() == CognosServer.PollStatus.FAILED) {
+                throw new RuntimeException(polled.getLastError());
+            }
+            return polled.getPollStatus().name();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof CircuitOpenException) {
+                // Not a failed attempt: the poll is rescheduled for when the circuit half-opens
+                return "Skipped: " + e.getCause().getMessage();
+            }
+            throw e;
+        } finally {
+            pollLeaseService.release(job.getServerId());
+        }
+    }
+
+    private String deployTarget(Job job) {
+        bulkOperationService.markStarted(job.getBulkOperationId());
+        bulkOperationService.deployTarget(job);
+        return "Deployed";
+    }
+
+    private String testConnection(Job job) {
+        CognosServer server = serverRepository.findById(job.getServerId())
+                .orElseThrow(() -> new RuntimeException("Server not found"));
+        if (!cognosApiService.testConnection(server)) {
+            throw new RuntimeException("Server " + server.getServerName() + " is not reachable");
+        }
+        return "Reachable";
+    }
+}
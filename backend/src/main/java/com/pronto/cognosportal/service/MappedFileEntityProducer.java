@@ -0,0 +1,120 @@
+package com.pronto.cognosportal.service;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Request body streamed from a file through read-only memory-mapped windows. The mapped
+ * buffers are handed to the connection as they are, so the content goes from the page cache
+ * to the socket without being copied onto the heap, and concurrent requests for the same
+ * file share its cached pages. Only one window per request is mapped at a time.
+ *
+ * The file must not change while it is being sent; stored artifacts are immutable.
+ */
+class MappedFileEntityProducer implements AsyncEntityProducer {
+
+    private final Path file;
+    private final long length;
+    private final long windowSize;
+    private final ContentType contentType;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long position;
+
+    MappedFileEntityProducer(Path file, long windowSize, ContentType contentType) throws IOException {
+        this.file = file;
+        this.length = Files.size(file);
+        this.windowSize = windowSize;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public void produce(DataStreamChannel stream) throws IOException {
+        if (window == null || !window.hasRemaining()) {
+            if (position >= length) {
+                stream.endStream();
+                return;
+            }
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            long size = Math.min(windowSize, length - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            position += size;
+        }
+
+        stream.write(window);
+        if (!window.hasRemaining() && position >= length) {
+            stream.endStream();
+        }
+    }
+
+    @Override
+    public int available() {
+        long remaining = length - position + (window != null ? window.remaining() : 0);
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType.toString();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return null;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        releaseResources();
+    }
+
+    /**
+     * Closes the file and rewinds, so the request can be sent again. Mapped windows are
+     * unmapped once they are garbage collected.
+     */
+    @Override
+    public void releaseResources() {
+        window = null;
+        position = 0;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Read-only, nothing to flush
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.ServerMetadata;
+import com.pronto.cognosportal.model.ServerMetadataRollup;
+import com.pronto.cognosportal.repository.ServerMetadataLatestRepository;
+import com.pronto.cognosportal.repository.ServerMetadataRepository;
+import com.pronto.cognosportal.repository.ServerMetadataRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps server_metadata bounded. Every snapshot updates the server's latest row and is
+ * added to the daily min/max/last rollup of its day as it is written, so snapshots older
+ * than metadata.retention.raw-days can simply be deleted. Daily rollups older than
+ * metadata.retention.daily-days are in turn rolled up into weekly ones, which are kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MetadataRetentionService {
+
+    // Arbitrary key for the advisory lock taken by compaction
+    private static final long COMPACTION_LOCK_KEY = 0x6d657461L;
+
+    private final ServerMetadataRepository metadataRepository;
+    private final ServerMetadataLatestRepository latestRepository;
+    private final ServerMetadataRollupRepository rollupRepository;
+    // Own proxy, so each compaction step runs in its own transaction
+    private final ObjectProvider<MetadataRetentionService> self;
+
+    @Value("${metadata.retention.raw-days:30}")
+    private int rawRetentionDays;
+
+    @Value("${metadata.retention.daily-days:365}")
+    private int dailyRetentionDays;
+
+    @Value("${metadata.retention.max-days-per-run:90}")
+    private int maxDaysPerRun;
+
+    /**
+     * Saves a snapshot, makes it the server's latest one and adds it to its daily rollup.
+     */
+    @Transactional
+    public ServerMetadata recordSnapshot(ServerMetadata metadata) {
+        ServerMetadata saved = metadataRepository.save(metadata);
+        Long serverId = saved.getServer().getId();
+        latestRepository.upsert(serverId, saved.getReportCount(), saved.getDashboardCount(),
+                saved.getDataModuleCount(), saved.getCapturedAt());
+        rollupRepository.addSnapshot(serverId, saved.getReportCount(), saved.getDashboardCount(),
+                saved.getDataModuleCount(), saved.getCapturedAt());
+        return saved;
+    }
+
+    @Scheduled(cron = "${metadata.retention.cron:0 30 2 * * *}")
+    public void compact() {
+        LocalDateTime rawCutoff = LocalDate.now().minusDays(rawRetentionDays).atStartOfDay();
+        int days = 0;
+        Optional<LocalDateTime> oldest;
+        while (days < maxDaysPerRun && (oldest = metadataRepository.findOldestCapturedBefore(rawCutoff)).isPresent()) {
+            LocalDateTime from = oldest.get().toLocalDate().atStartOfDay();
+            if (!self.getObject().deleteDay(from, from.plusDays(1))) {
+                log.info("Metadata compaction is running on another node, skipping");
+                return;
+            }
+            days++;
+        }
+
+        // Weekly buckets are only complete once all their days are past the cutoff
+        LocalDateTime dailyCutoff = LocalDate.now().minusDays(dailyRetentionDays)
+                .with(DayOfWeek.MONDAY).atStartOfDay();
+        self.getObject().rollUpWeeks(dailyCutoff);
+
+        if (days > 0) {
+            log.info("Deleted {} days of metadata snapshots older than {}", days, rawCutoff.toLocalDate());
+        }
+    }
+
+    /**
+     * Deletes the raw snapshots of one day; they are already in its daily rollup.
+     * Returns false if another node holds the compaction lock.
+     */
+    @Transactional
+    public boolean deleteDay(LocalDateTime from, LocalDateTime to) {
+        if (!rollupRepository.tryCompactionLock(COMPACTION_LOCK_KEY)) {
+            return false;
+        }
+        int deleted = metadataRepository.deleteCapturedBetween(from, to);
+        log.debug("Compacted {} metadata snapshots of {}", deleted, from.toLocalDate());
+        return true;
+    }
+
+    @Transactional
+    public void rollUpWeeks(LocalDateTime cutoff) {
+        if (!rollupRepository.tryCompactionLock(COMPACTION_LOCK_KEY)) {
+            return;
+        }
+        if (rollupRepository.rollUpDailyRollups(cutoff) > 0) {
+            int deleted = rollupRepository.deleteByGranularityBefore(ServerMetadataRollup.Granularity.DAY, cutoff);
+            log.info("Rolled up {} daily metadata rollups before {} into weekly rollups", deleted, cutoff.toLocalDate());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.dto.MetadataTrend;
+import com.pronto.cognosportal.model.ServerMetadataLatest;
+import com.pronto.cognosportal.repository.CognosServerRepository;
+import com.pronto.cognosportal.repository.ServerMetadataLatestRepository;
+import com.pronto.cognosportal.repository.ServerMetadataRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content count trends, served from the daily and weekly metadata rollups rather than
+ * raw snapshots, so the cost depends on the range and bucket size, not on how often
+ * servers were polled. Days older than the daily retention only exist as weekly rollups,
+ * so buckets smaller than a week there show the week the data was rolled into.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetadataTrendService {
+
+    public static final Set<String> BUCKETS = Set.of("day", "week", "month", "quarter", "year");
+
+    private static final int DEFAULT_RANGE_DAYS = 90;
+
+    private final ServerMetadataRollupRepository rollupRepository;
+    private final ServerMetadataLatestRepository latestRepository;
+    private final CognosServerRepository serverRepository;
+
+    /**
+     * The server's most recent content counts, one primary key lookup in
+     * server_metadata_latest. Empty if the server has not been polled successfully yet.
+     */
+    public Optional<ServerMetadataLatest> getLatestMetadata(Long serverId) {
+        if (!serverRepository.existsById(serverId)) {
+            throw new RuntimeException("Server not found");
+        }
+        return latestRepository.findById(serverId);
+    }
+
+    public MetadataTrend getServerTrend(Long serverId, String bucket, LocalDate from, LocalDate to) {
+        if (!serverRepository.existsById(serverId)) {
+            throw new RuntimeException("Server not found");
+        }
+        MetadataTrend trend = newTrend(bucket, from, to);
+        trend.setServerId(serverId);
+        trend.setPoints(rollupRepository.findServerTrend(serverId, trend.getBucket(),
+                        trend.getFrom().atStartOfDay(), trend.getTo().atStartOfDay()).stream()
+                .map(row -> MetadataTrend.Point.builder()
+                        .bucketStart(toDateTime(row[0]))
+                        .serverCount(1)
+                        .sampleCount(toLong(row[1]))
+                        .reportMin(toInteger(row[2]))
+                        .reportMax(toInteger(row[3]))
+                        .reportCount(toLong(row[4]))
+                        .dashboardMin(toInteger(row[5]))
+                        .dashboardMax(toInteger(row[6]))
+                        .dashboardCount(toLong(row[7]))
+                        .dataModuleMin(toInteger(row[8]))
+                        .dataModuleMax(toInteger(row[9]))
+                        .dataModuleCount(toLong(row[10]))
+                        .build())
+                .toList());
+        return trend;
+    }
+
+    /**
+     * Fleet-wide trend, optionally limited to one XI version or split into one series per version.
+     */
+    public MetadataTrend getFleetTrend(String bucket, LocalDate from, LocalDate to, String xiVersion,
+                                       boolean byVersion) {
+        MetadataTrend trend = newTrend(bucket, from, to);
+        trend.setXiVersion(xiVersion);
+        trend.setPoints(rollupRepository.findFleetTrend(trend.getBucket(), trend.getFrom().atStartOfDay(),
+                        trend.getTo().atStartOfDay(), xiVersion, byVersion).stream()
+                .map(row -> MetadataTrend.Point.builder()
+                        .bucketStart(toDateTime(row[0]))
+                        .xiVersion((String) row[1])
+                        .serverCount(toInteger(row[2]))
+                        .sampleCount(toLong(row[3]))
+                        .reportCount(toLong(row[4]))
+                        .dashboardCount(toLong(row[5]))
+                        .dataModuleCount(toLong(row[6]))
+                        .build())
+                .toList());
+        return trend;
+    }
+
+    private static MetadataTrend newTrend(String bucket, LocalDate from, LocalDate to) {
+        String unit = bucket != null ? bucket.toLowerCase() : "day";
+        if (!BUCKETS.contains(unit)) {
+            throw new RuntimeException("Unsupported bucket '" + bucket + "', expected one of " + BUCKETS);
+        }
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(1);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("Trend range start must be before its end");
+        }
+        return MetadataTrend.builder()
+                .bucket(unit)
+                .from(start)
+                .to(end)
+                .build();
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when each server is polled next. Servers whose inventory changes get polled
+ * more often, quiet servers less often, always within the configured bounds. Every
+ * next-poll time is jittered so the fleet does not converge on the same instant.
+ */
+@Component
+public class PollIntervalPolicy {
+
+    @Value("${polling.adaptive.min-interval-minutes:60}")
+    private int minIntervalMinutes;
+
+    @Value("${polling.adaptive.max-interval-minutes:1440}")
+    private int maxIntervalMinutes;
+
+    @Value("${polling.adaptive.initial-interval-minutes:720}")
+    private int initialIntervalMinutes;
+
+    @Value("${polling.adaptive.jitter-ratio:0.2}")
+    private double jitterRatio;
+
+    @Value("${polling.adaptive.boost-delay-minutes:5}")
+    private int boostDelayMinutes;
+
+    /**
+     * First schedule for a server that has none: a random point within its interval,
+     * so newly scheduled servers are spread evenly across the window.
+     */
+    public void scheduleInitial(CognosServer server) {
+        int interval = currentInterval(server);
+        server.setPollIntervalMinutes(interval);
+        if (server.getPollStatus() == CognosServer.PollStatus.NEVER_POLLED) {
+            server.setNextPollAt(LocalDateTime.now().plusSeconds(
+                    ThreadLocalRandom.current().nextLong(boostDelayMinutes * 60L + 1)));
+        } else {
+            server.setNextPollAt(LocalDateTime.now().plusSeconds(
+                    ThreadLocalRandom.current().nextLong(interval * 60L + 1)));
+        }
+    }
+
+    /**
+     * Adapts the interval after a successful poll: halve it when the inventory changed,
+     * grow it by half when it did not.
+     */
+    public void recordSuccess(CognosServer server, boolean inventoryChanged) {
+        int current = currentInterval(server);
+        int next = inventoryChanged ? current / 2 : current + current / 2;
+        next = Math.max(minIntervalMinutes, Math.min(maxIntervalMinutes, next));
+        server.setPollIntervalMinutes(next);
+        server.setNextPollAt(jittered(next));
+    }
+
+    /**
+     * A failed poll is retried soon, keeping the learned interval. If the server's circuit
+     * breaker is open (retryAt not null) the retry waits until the breaker lets calls through.
+     */
+    public void recordFailure(CognosServer server, LocalDateTime retryAt) {
+        if (retryAt != null) {
+            server.setNextPollAt(retryAt.plusSeconds(ThreadLocalRandom.current().nextLong(60)));
+            return;
+        }
+        server.setNextPollAt(LocalDateTime.now().plusMinutes(boostDelayMinutes));
+    }
+
+    /**
+     * Moves the server's next poll forward, e.g. after content was deployed to it.
+     */
+    public void boost(CognosServer server) {
+        LocalDateTime boosted = LocalDateTime.now().plusMinutes(boostDelayMinutes);
+        if (server.getNextPollAt() == null || server.getNextPollAt().isAfter(boosted)) {
+            server.setNextPollAt(boosted);
+        }
+    }
+
+    private int currentInterval(CognosServer server) {
+        Integer interval = server.getPollIntervalMinutes();
+        return interval != null && interval > 0 ? interval : initialIntervalMinutes;
+    }
+
+    private LocalDateTime jittered(int intervalMinutes) {
+        long seconds = intervalMinutes * 60L;
+        long jitter = (long) (seconds * jitterRatio);
+        long offset = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+        return LocalDateTime.now().plusSeconds(Math.max(60, seconds + offset));
+    }
+}
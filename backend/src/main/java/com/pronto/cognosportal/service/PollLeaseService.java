@@ -0,0 +1,142 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.repository.CognosServerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Partitions scheduled polling across portal nodes. A node polls a server only while it
+ * holds that server's lease: leases are claimed with SELECT ... FOR UPDATE SKIP LOCKED,
+ * so concurrent nodes claim disjoint batches, renewed while the poll runs, and released
+ * when it finishes. A dead node's leases expire and its servers are claimed by another node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PollLeaseService {
+
+    private final CognosServerRepository serverRepository;
+
+    @Value("${polling.lease.node-id:}")
+    private String nodeId;
+
+    @Value("${polling.lease.duration-seconds:300}")
+    private long leaseSeconds;
+
+    /**
+     * Servers this node holds a lease on, kept alive by {@link #renewHeldLeases()}.
+     */
+    private final Set<Long> heldLeases = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "node";
+            }
+            nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        log.info("Poll leases held as node {} ({} s lease)", nodeId, leaseSeconds);
+    }
+
+    /**
+     * Claims up to limit active servers whose next poll is due and that no node holds a lease on.
+     */
+    @Transactional
+    public List<CognosServer> claimDue(LocalDateTime now, int limit) {
+        return claim(() -> serverRepository.lockDueForPoll(now, limit));
+    }
+
+    /**
+     * Claims every active server not polled since the given time that no node holds a lease on.
+     * Used by whole-fleet runs, so nodes firing the same schedule poll each server once.
+     */
+    @Transactional
+    public List<CognosServer> claimNotPolledSince(LocalDateTime since) {
+        return claim(() -> serverRepository.lockNotPolledSince(since));
+    }
+
+    /**
+     * Claims the given server if no node holds a lease on it. Returns empty if another
+     * node (or this one) is already polling it.
+     */
+    @Transactional
+    public Optional<CognosServer> claimServer(Long serverId) {
+        return claim(() -> serverRepository.lockUnleased(List.of(serverId))).stream().findFirst();
+    }
+
+    /**
+     * Gives up the lease once the poll has recorded its outcome.
+     */
+    @Transactional
+    public void release(Long serverId) {
+        if (heldLeases.remove(serverId)) {
+            serverRepository.releaseLeases(List.of(serverId), nodeId);
+        }
+    }
+
+    /**
+     * Extends the leases of the servers this node is still polling. Runs well within
+     * the lease duration so a live node never loses a lease mid-poll.
+     */
+    @Scheduled(fixedDelayString = "${polling.lease.renew-interval-ms:60000}")
+    @Transactional
+    public void renewHeldLeases() {
+        List<Long> ids = List.copyOf(heldLeases);
+        if (ids.isEmpty()) {
+            return;
+        }
+        int renewed = serverRepository.renewLeases(ids, nodeId, leaseSeconds);
+        if (renewed < ids.size()) {
+            log.warn("Renewed only {} of {} poll leases; the rest expired and may be polled by another node",
+                    renewed, ids.size());
+        }
+    }
+
+    /**
+     * Hands back this node's leases on shutdown, so other nodes need not wait for them to expire.
+     */
+    @PreDestroy
+    public void releaseAll() {
+        List<Long> ids = List.copyOf(heldLeases);
+        if (ids.isEmpty()) {
+            return;
+        }
+        serverRepository.releaseLeases(ids, nodeId);
+        heldLeases.clear();
+        log.info("Released {} poll leases on shutdown", ids.size());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private List<CognosServer> claim(Supplier<List<Long>> lockCandidates) {
+        List<Long> ids = lockCandidates.get();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        serverRepository.acquireLeases(ids, nodeId, leaseSeconds);
+        heldLeases.addAll(ids);
+        return serverRepository.findAllById(ids);
+    }
+}
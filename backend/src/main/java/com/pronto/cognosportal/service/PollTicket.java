@@ -0,0 +1,19 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle on a poll request. joined is true when the request attached to a poll of the
+ * same server that was already running rather than starting a new one.
+ */
+@Getter
+@AllArgsConstructor
+public class PollTicket {
+    private final Long serverId;
+    private final boolean joined;
+    private final CompletableFuture<CognosServer> result;
+}
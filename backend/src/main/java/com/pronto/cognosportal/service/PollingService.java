@@ -1,11 +1,13 @@
 package com.pronto.cognosportal.service;
 
+import com.pronto.cognosportal.exception.CircuitOpenException;
 import com.pronto.cognosportal.model.*;
 import com.pronto.cognosportal.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +15,10 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -20,31 +26,103 @@ import java.util.Map;
 public class PollingService {
 
     private final CognosServerRepository serverRepository;
-    private final ServerMetadataRepository metadataRepository;
-    private final ContentInventoryRepository contentInventoryRepository;
+    private final MetadataRetentionService metadataRetentionService;
     private final ChangeHistoryRepository changeHistoryRepository;
     private final CognosApiService cognosApiService;
+    private final InventorySyncService inventorySyncService;
+    private final InventoryValidatorCache inventoryValidatorCache;
+    private final PollIntervalPolicy pollIntervalPolicy;
+    private final CognosCircuitBreaker circuitBreaker;
+    private final PortalMetrics metrics;
+    @Qualifier("fleetPollExecutor")
+    private final Executor pollExecutor;
+    // Own proxy, so the transactional steps of a poll go through @Transactional
+    private final ObjectProvider<PollingService> self;
 
-    @Scheduled(cron = "${polling.schedule.cron}")
-    public void scheduledPollAllServers() {
-        log.info("Starting scheduled polling of all servers");
-        List<CognosServer> servers = serverRepository.findByIsActiveTrue();
-        log.info("Found {} active servers to poll", servers.size());
+    /**
+     * Polls currently running, by server id. A poll request for a server in this map
+     * joins the running poll instead of starting another.
+     */
+    private final Map<Long, CompletableFuture<CognosServer>> inFlightPolls = new ConcurrentHashMap<>();
 
-        for (CognosServer server : servers) {
-            pollServerAsync(server.getId());
+    @Value("${polling.inventory.streaming:true}")
+    private boolean streamingInventory;
+
+    /**
+     * Starts a background poll of the server, or joins the one already running.
+     */
+    public PollTicket requestPoll(Long serverId) {
+        if (!serverRepository.existsById(serverId)) {
+            throw new RuntimeException("Server not found");
         }
+        return startOrJoin(serverId, () -> {
+            CognosServer server = serverRepository.findById(serverId)
+                    .orElseThrow(() -> new RuntimeException("Server not found"));
+            return self.getObject().pollServer(server);
+        }, pollExecutor);
     }
 
-    @Async
-    public void pollServerAsync(Long serverId) {
-        CognosServer server = serverRepository.findById(serverId)
-                .orElseThrow(() -> new RuntimeException("Server not found"));
-        pollServer(server);
+    /**
+     * Polls the server on the calling thread, or, if a poll of it is already running,
+     * returns straight away with a ticket that completes when that poll does.
+     */
+    public PollTicket pollOrJoin(CognosServer server) {
+        return startOrJoin(server.getId(), () -> self.getObject().pollServer(server), Runnable::run);
     }
 
-    @Transactional
-    public void pollServer(CognosServer server) {
+    public boolean isPollInFlight(Long serverId) {
+        return inFlightPolls.containsKey(serverId);
+    }
+
+    private PollTicket startOrJoin(Long serverId, Supplier<CognosServer> poll, Executor executor) {
+        CompletableFuture<CognosServer> promise = new CompletableFuture<>();
+        CompletableFuture<CognosServer> running = inFlightPolls.putIfAbsent(serverId, promise);
+        if (running != null) {
+            log.info("Poll of server {} already in progress, joining it", serverId);
+            return new PollTicket(serverId, true, running);
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    CognosServer result = poll.get();
+                    inFlightPolls.remove(serverId, promise);
+                    promise.complete(result);
+                } catch (Throwable t) {
+                    inFlightPolls.remove(serverId, promise);
+                    promise.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor rejected the poll
+            inFlightPolls.remove(serverId, promise);
+            promise.completeExceptionally(e);
+        }
+        return new PollTicket(serverId, false, promise);
+    }
+
+    /**
+     * Polls a single server and returns its state after the poll
+     * (poll status and last error reflect the outcome). If the server's circuit is open it
+     * is not called: its next poll is put off until the circuit half-opens and
+     * {@link CircuitOpenException} is thrown, so the skip is not taken for the outcome of
+     * the previous poll.
+     *
+     * Not transactional: the server is called with no transaction open and the outcome is
+     * committed in short transactions afterwards, so a slow server holds no pooled connection.
+     */
+    public CognosServer pollServer(CognosServer server) {
+        PortalMetrics.Sample sample = metrics.startPoll(server);
+        if (!circuitBreaker.allowsRequest(server.getId())) {
+            // Server is known to be down: don't spend a poll on it, come back when the circuit half-opens
+            LocalDateTime retryAt = circuitBreaker.getRetryAt(server.getId());
+            log.info("Skipping poll of server {}: circuit open until {}", server.getServerName(), retryAt);
+            pollIntervalPolicy.recordFailure(server, retryAt);
+            server = serverRepository.save(server);
+            sample.stop(PortalMetrics.OUTCOME_SKIPPED);
+            throw new CircuitOpenException(server.getServerName(), retryAt);
+        }
+
         log.info("Polling server: {}", server.getServerName());
 
         try {
@@ -52,44 +130,116 @@ public class PollingService {
             server.setPollStatus(CognosServer.PollStatus.IN_PROGRESS);
             server = serverRepository.save(server);
 
-            // Call Cognos API to get content
-            Map<String, Object> response = cognosApiService.getContentInventory(server);
+            InventoryFetchResult fetchResult;
+            InventorySyncResult syncResult = null;
+            if (streamingInventory) {
+                // Stream the inventory straight into content_inventory, chunk by chunk
+                InventorySyncService.InventorySyncSession session = inventorySyncService.openSession(server);
+                fetchResult = streamInventory(server, session);
+                syncResult = session.getResult();
+            } else {
+                // Call Cognos API to get content
+                fetchResult = cognosApiService.fetchContentInventory(server);
+            }
 
-            // Update server_metadata
-            ServerMetadata metadata = ServerMetadata.builder()
-                    .server(server)
-                    .reportCount(getCountFromResponse(response, "reports"))
-                    .dashboardCount(getCountFromResponse(response, "dashboards"))
-                    .dataModuleCount(getCountFromResponse(response, "dataModules"))
-                    .build();
-            metadataRepository.save(metadata);
-
-            // Update content_inventory (simplified - actual implementation would parse response properly)
-            // This is a placeholder - real implementation would iterate through actual content items
-            updateContentInventory(server, response);
-
-            // Update server status
-            server.setPollStatus(CognosServer.PollStatus.SUCCESS);
-            server.setLastPollTime(LocalDateTime.now());
-            server.setLastError(null);
-            serverRepository.save(server);
-
-            // Log to change_history
-            logPollingEvent(server, "SUCCESS");
-
-            log.info("Successfully polled server: {}", server.getServerName());
+            server = self.getObject().recordPollSuccess(server, fetchResult, syncResult);
+            sample.stop(fetchResult.isNotModified() ? PortalMetrics.OUTCOME_NOT_MODIFIED : PortalMetrics.OUTCOME_SUCCESS);
+            return server;
         } catch (Exception e) {
             log.error("Failed to poll server {}: {}", server.getServerName(), e.getMessage());
 
             server.setPollStatus(CognosServer.PollStatus.FAILED);
             server.setLastError(e.getMessage());
-            serverRepository.save(server);
+            pollIntervalPolicy.recordFailure(server, circuitBreaker.getRetryAt(server.getId()));
+            server = serverRepository.save(server);
 
-            logPollingEvent(server, "FAILED");
+            logPollingEvent(server, "FAILED", Map.of());
+            sample.fail(e);
+            return server;
         }
     }
 
-    private Integer getCountFromResponse(Map<String, Object> response, String key) {
+    /**
+     * Streams the inventory into the session. Every chunk is committed on its own, so no
+     * connection is held while waiting for the next one from the server; a full sync is
+     * swapped in when it finishes, and what it staged is dropped if it does not.
+     */
+    private InventoryFetchResult streamInventory(CognosServer server,
+                                                 InventorySyncService.InventorySyncSession session) {
+        try {
+            InventoryFetchResult fetchResult = cognosApiService.streamContentInventory(
+                    server, inventorySyncService.getChunkSize(), chunk -> inventorySyncService.apply(session, chunk));
+            if (!fetchResult.isNotModified()) {
+                inventorySyncService.finish(session);
+            }
+            return fetchResult;
+        } finally {
+            if (session.hasStagedRows()) {
+                inventorySyncService.discard(session);
+            }
+        }
+    }
+
+    /**
+     * Records a successful fetch in one transaction: the inventory unless it was streamed
+     * in already, the metadata snapshot and the server's status.
+     */
+    @Transactional
+    public CognosServer recordPollSuccess(CognosServer server, InventoryFetchResult fetchResult,
+                                          InventorySyncResult streamedSync) {
+        InventorySyncResult syncResult = streamedSync;
+        if (!fetchResult.isNotModified()) {
+            ServerMetadata metadata;
+            if (streamingInventory) {
+                Map<ContentInventory.ContentType, Integer> counts = fetchResult.getCounts();
+                metadata = ServerMetadata.builder()
+                        .server(server)
+                        .reportCount(counts.get(ContentInventory.ContentType.REPORT))
+                        .dashboardCount(counts.get(ContentInventory.ContentType.DASHBOARD))
+                        .dataModuleCount(counts.get(ContentInventory.ContentType.DATA_MODULE))
+                        .build();
+            } else {
+                Map<String, Object> response = fetchResult.getResponse();
+                metadata = ServerMetadata.builder()
+                        .server(server)
+                        .reportCount(getCountFromResponse(response, "reports"))
+                        .dashboardCount(getCountFromResponse(response, "dashboards"))
+                        .dataModuleCount(getCountFromResponse(response, "dataModules"))
+                        .build();
+
+                // Update content_inventory with only the rows that changed since the last poll
+                syncResult = inventorySyncService.sync(server, response);
+            }
+
+            // Update server_metadata
+            metadataRetentionService.recordSnapshot(metadata);
+            inventoryValidatorCache.storeAfterCommit(server.getId(), fetchResult.getValidator());
+        }
+
+        // Update server status and adapt the interval to how often its inventory changes
+        pollIntervalPolicy.recordSuccess(server, syncResult != null && syncResult.hasChanges());
+        server.setPollStatus(CognosServer.PollStatus.SUCCESS);
+        server.setLastPollTime(LocalDateTime.now());
+        server.setLastError(null);
+        server = serverRepository.save(server);
+
+        if (syncResult == null) {
+            // Inventory unchanged since the last poll, nothing else to persist
+            logPollingEvent(server, "SUCCESS", Map.of("notModified", true));
+            log.info("Successfully polled server: {} (inventory unchanged)", server.getServerName());
+            return server;
+        }
+
+        // Log to change_history
+        logPollingEvent(server, "SUCCESS", syncResult.toDetails());
+
+        log.info("Successfully polled server: {} (added: {}, changed: {}, removed: {})",
+                server.getServerName(), syncResult.getAdded(), syncResult.getChanged(),
+                syncResult.getRemoved());
+        return server;
+    }
+
+    static Integer getCountFromResponse(Map<String, Object> response, String key) {
         // Placeholder implementation
         if (response != null && response.containsKey(key)) {
             Object value = response.get(key);
@@ -101,18 +251,8 @@ public class PollingService {
     }
 
     @Transactional
-    private void updateContentInventory(CognosServer server, Map<String, Object> response) {
-        // Clear existing inventory for this server
-        contentInventoryRepository.deleteByServerId(server.getId());
-
-        // This is a placeholder - actual implementation would parse the response
-        // and create ContentInventory entries based on the actual Cognos API response structure
-        log.debug("Content inventory updated for server: {}", server.getServerName());
-    }
-
-    @Transactional
-    private void logPollingEvent(CognosServer server, String status) {
-        Map<String, Object> details = new HashMap<>();
+    private void logPollingEvent(CognosServer server, String status, Map<String, Object> extraDetails) {
+        Map<String, Object> details = new HashMap<>(extraDetails);
         details.put("status", status);
         details.put("pollTime", LocalDateTime.now().toString());
 
@@ -0,0 +1,117 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.CognosServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Micrometer meters for the polling and bulk-deploy pipelines, exposed through the
+ * Actuator metrics and prometheus endpoints.
+ *
+ * Fleet-wide timers publish a percentile histogram. Per-server timers are tagged with the
+ * server name and use a fixed set of buckets, so a large fleet does not multiply the
+ * full histogram; they can be switched off with metrics.per-server.enabled.
+ */
+@Component
+public class PortalMetrics {
+
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+    public static final String OUTCOME_NOT_MODIFIED = "NOT_MODIFIED";
+    public static final String OUTCOME_SKIPPED = "SKIPPED";
+    public static final String OUTCOME_FAILED = "FAILED";
+
+    private static final Duration[] SERVER_BUCKETS = {
+            Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(15), Duration.ofSeconds(30),
+            Duration.ofMinutes(1), Duration.ofMinutes(2), Duration.ofMinutes(5), Duration.ofMinutes(10)
+    };
+
+    private final MeterRegistry registry;
+    private final boolean perServer;
+    private final LongTaskTimer activePolls;
+    private final LongTaskTimer activeDeploys;
+
+    public PortalMetrics(MeterRegistry registry,
+                         @Value("${metrics.per-server.enabled:true}") boolean perServer) {
+        this.registry = registry;
+        this.perServer = perServer;
+        this.activePolls = LongTaskTimer.builder("cognos.polls.active")
+                .description("Polls in progress")
+                .register(registry);
+        this.activeDeploys = LongTaskTimer.builder("cognos.deploys.active")
+                .description("Bulk-deploy targets in progress")
+                .register(registry);
+    }
+
+    public Sample startPoll(CognosServer server) {
+        return new Sample("cognos.polls", "cognos.polls.failures", server, activePolls.start());
+    }
+
+    public Sample startDeploy(CognosServer server) {
+        return new Sample("cognos.deploys", "cognos.deploys.failures", server, activeDeploys.start());
+    }
+
+    /**
+     * Counts bulk-deploy targets left out because they already run the artifact.
+     */
+    public void recordSkippedDeploys(int count) {
+        Counter.builder("cognos.deploys.skipped")
+                .description("Bulk-deploy targets skipped as already up to date")
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * A running poll or deploy. Stopping it records its duration under its outcome and,
+     * for failures, counts the failure by exception type.
+     */
+    public class Sample {
+
+        private final String timerName;
+        private final String failureCounterName;
+        private final CognosServer server;
+        private final LongTaskTimer.Sample active;
+        private final long startNanos = System.nanoTime();
+
+        private Sample(String timerName, String failureCounterName, CognosServer server,
+                       LongTaskTimer.Sample active) {
+            this.timerName = timerName;
+            this.failureCounterName = failureCounterName;
+            this.server = server;
+            this.active = active;
+        }
+
+        public void stop(String outcome) {
+            active.stop();
+            Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+            Timer.builder(timerName)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(duration);
+
+            if (perServer) {
+                Timer.builder(timerName + ".server")
+                        .tag("server", server.getServerName())
+                        .tag("outcome", outcome)
+                        .serviceLevelObjectives(SERVER_BUCKETS)
+                        .register(registry)
+                        .record(duration);
+            }
+        }
+
+        public void fail(Throwable cause) {
+            stop(OUTCOME_FAILED);
+            Counter.builder(failureCounterName)
+                    .tag("reason", cause.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
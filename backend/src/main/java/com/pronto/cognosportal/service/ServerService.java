@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,23 +24,24 @@ public class ServerService {
     private final EncryptionService encryptionService;
     private final AuthService authService;
     private final AuditService auditService;
+    private final CognosCircuitBreaker circuitBreaker;
 
     public List<ServerDTO> getAllServers() {
         return serverRepository.findAll().stream()
-                .map(ServerDTO::fromEntity)
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     public List<ServerDTO> getActiveServers() {
         return serverRepository.findByIsActiveTrue().stream()
-                .map(ServerDTO::fromEntity)
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     public ServerDTO getServerById(Long id) {
         CognosServer server = serverRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Server not found"));
-        return ServerDTO.fromEntity(server);
+        return toDto(server);
     }
 
     @Transactional
@@ -72,7 +74,7 @@ public class ServerService {
         auditService.logSuccess(currentUser, "SERVER_ENROLLED", "SERVER", server.getId(),
                 null, null);
 
-        return ServerDTO.fromEntity(server);
+        return toDto(server);
     }
 
     @Transactional
@@ -82,6 +84,9 @@ public class ServerService {
 
         User currentUser = authService.getCurrentUser();
 
+        // A breaker opened against the old address or key says nothing about the new one
+        boolean endpointChanged = !Objects.equals(server.getBaseUrl(), request.getBaseUrl());
+
         // Update fields
         server.setServerName(request.getServerName());
         server.setBaseUrl(request.getBaseUrl());
@@ -92,9 +97,13 @@ public class ServerService {
         if (request.getApiKey() != null && !request.getApiKey().isEmpty()) {
             String encryptedApiKey = encryptionService.encrypt(request.getApiKey());
             server.setApiKeyEncrypted(encryptedApiKey);
+            endpointChanged = true;
         }
 
         server = serverRepository.save(server);
+        if (endpointChanged) {
+            circuitBreaker.reset(server.getId());
+        }
 
         log.info("Server updated: {} by {}", server.getServerName(),
                 currentUser != null ? currentUser.getUsername() : "unknown");
@@ -102,7 +111,7 @@ public class ServerService {
         auditService.logSuccess(currentUser, "SERVER_UPDATED", "SERVER", server.getId(),
                 null, null);
 
-        return ServerDTO.fromEntity(server);
+        return toDto(server);
     }
 
     @Transactional
@@ -117,6 +126,12 @@ public class ServerService {
         auditService.logSuccess(currentUser, "SERVER_DELETED", "SERVER", id, null, null);
     }
 
+    private ServerDTO toDto(CognosServer server) {
+        CognosCircuitBreaker.Snapshot circuit = circuitBreaker.getSnapshot(server.getId());
+        return ServerDTO.fromEntity(server, circuit.getState().name(), circuit.getConsecutiveFailures(),
+                circuit.getOpenUntil());
+    }
+
     public CognosServer getServerEntity(Long id) {
         return serverRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Server not found"));
@@ -0,0 +1,16 @@
+package com.pronto.cognosportal.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A received deploy artifact, spooled and hashed but not yet in the artifact store.
+ * path is relative to the artifact directory.
+ */
+@Data
+@AllArgsConstructor
+public class SpooledArtifact {
+    private String path;
+    private long size;
+    private String sha256;
+}
@@ -0,0 +1,25 @@
+-- Content-addressed store of deploy artifacts, keyed by SHA-256. Bulk operations reference
+-- artifacts by hash, so identical uploads are stored once and re-runs need no upload.
+CREATE TABLE artifacts (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    path TEXT NOT NULL, -- relative to deploy.artifacts.dir
+    size BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0, -- unfinished bulk operations using the artifact; only unreferenced ones are evicted
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_used_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_artifacts_evictable ON artifacts(last_used_at) WHERE ref_count = 0;
+
+-- Adopt the files of operations uploaded so far; their paths stay as they are
+INSERT INTO artifacts (sha256, path, size, ref_count, created_at, last_used_at)
+SELECT artifact_sha256, MIN(artifact_path), MAX(artifact_size),
+       COUNT(*) FILTER (WHERE status IN ('PENDING', 'IN_PROGRESS')),
+       MIN(created_at), MAX(COALESCE(completed_at, created_at))
+FROM bulk_operations
+WHERE artifact_path IS NOT NULL AND artifact_sha256 IS NOT NULL
+GROUP BY artifact_sha256;
+
+DROP INDEX IF EXISTS idx_bulk_operations_artifact;
+ALTER TABLE bulk_operations DROP COLUMN artifact_path;
+CREATE INDEX idx_bulk_operations_artifact ON bulk_operations(artifact_sha256);
@@ -0,0 +1,20 @@
+-- Artifact last deployed by the portal per server and content path, keyed like
+-- server_content_inventory. Kept beside the inventory rather than on its rows, because a full
+-- inventory sync replaces the rows and new content has none until the next poll.
+CREATE TABLE deployed_content (
+    server_id BIGINT NOT NULL REFERENCES cognos_servers(id) ON DELETE CASCADE,
+    content_path TEXT NOT NULL,
+    artifact_sha256 VARCHAR(64) NOT NULL,
+    bulk_operation_id BIGINT REFERENCES bulk_operations(id) ON DELETE SET NULL,
+    deployed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    content_version VARCHAR(50), -- inventory version after the deploy, taken from the next poll
+    confirmed_at TIMESTAMP, -- null until then; only confirmed deployments let later deploys be skipped
+    PRIMARY KEY (server_id, content_path)
+);
+
+-- Targets already running the artifact are not deployed again
+ALTER TABLE bulk_operations ADD COLUMN skipped_count INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE bulk_operation_details DROP CONSTRAINT bulk_operation_details_status_check;
+ALTER TABLE bulk_operation_details ADD CONSTRAINT bulk_operation_details_status_check
+    CHECK (status IN ('SUCCESS', 'FAILED', 'PENDING', 'IN_PROGRESS', 'SKIPPED'));
@@ -0,0 +1,15 @@
+-- Ids of the high-volume tables are allocated by Hibernate 50 at a time (pooled optimizer),
+-- so their inserts can be sent in JDBC batches. Each sequence value is the top of a block of
+-- 50 ids handed out by the application, so the columns no longer default to nextval: a row
+-- inserted with the default could collide with an id already handed out.
+ALTER SEQUENCE server_content_inventory_id_seq INCREMENT BY 50;
+ALTER TABLE server_content_inventory ALTER COLUMN id DROP DEFAULT;
+
+ALTER SEQUENCE server_metadata_id_seq INCREMENT BY 50;
+ALTER TABLE server_metadata ALTER COLUMN id DROP DEFAULT;
+
+ALTER SEQUENCE change_history_id_seq INCREMENT BY 50;
+ALTER TABLE change_history ALTER COLUMN id DROP DEFAULT;
+
+ALTER SEQUENCE bulk_operation_details_id_seq INCREMENT BY 50;
+ALTER TABLE bulk_operation_details ALTER COLUMN id DROP DEFAULT;
@@ -0,0 +1,17 @@
+-- Inventory of a full sync, staged chunk by chunk while it is fetched and swapped into
+-- server_content_inventory in one short transaction at the end, so no transaction is held
+-- open across the fetch and readers never see the inventory half replaced. Ids come from
+-- server_content_inventory_id_seq and are kept when the rows are swapped in.
+CREATE TABLE server_content_inventory_staging (
+    id BIGINT PRIMARY KEY,
+    sync_id VARCHAR(36) NOT NULL,
+    server_id BIGINT NOT NULL REFERENCES cognos_servers(id) ON DELETE CASCADE,
+    content_type VARCHAR(50) NOT NULL,
+    content_name VARCHAR(255) NOT NULL,
+    content_version VARCHAR(50),
+    content_path TEXT NOT NULL,
+    last_updated TIMESTAMP
+);
+
+CREATE INDEX idx_content_staging_sync ON server_content_inventory_staging(sync_id);
+CREATE INDEX idx_content_staging_server ON server_content_inventory_staging(server_id);
@@ -0,0 +1,2 @@
+-- Deploy content is only kept as artifact files now; nothing writes or reads inline content
+DROP TABLE bulk_operation_contents;
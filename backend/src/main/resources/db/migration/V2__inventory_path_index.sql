@@ -0,0 +1,2 @@
+-- Supports per-chunk lookups of stored inventory rows during delta sync
+CREATE INDEX idx_content_server_path ON server_content_inventory(server_id, content_path);
@@ -0,0 +1,5 @@
+-- Per-server poll schedule used by the adaptive poll scheduler
+ALTER TABLE cognos_servers ADD COLUMN next_poll_at TIMESTAMP;
+ALTER TABLE cognos_servers ADD COLUMN poll_interval_minutes INTEGER;
+
+CREATE INDEX idx_servers_next_poll ON cognos_servers(next_poll_at) WHERE is_active = true;
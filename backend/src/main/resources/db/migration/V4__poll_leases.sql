@@ -0,0 +1,5 @@
+-- Poll leases, so several portal nodes can share the fleet without polling a server twice
+ALTER TABLE cognos_servers ADD COLUMN lease_owner VARCHAR(100);
+ALTER TABLE cognos_servers ADD COLUMN lease_expires_at TIMESTAMP;
+
+CREATE INDEX idx_servers_lease_owner ON cognos_servers(lease_owner) WHERE lease_owner IS NOT NULL;
@@ -0,0 +1,32 @@
+-- Durable work queue for polls, bulk deploy targets and connectivity tests
+CREATE TABLE jobs (
+    id BIGSERIAL PRIMARY KEY,
+    job_type VARCHAR(30) NOT NULL CHECK (job_type IN ('POLL', 'DEPLOY_TARGET', 'CONNECTIVITY_TEST')),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'SUCCEEDED', 'FAILED')),
+    priority INTEGER NOT NULL DEFAULT 0,
+    server_id BIGINT NOT NULL REFERENCES cognos_servers(id) ON DELETE CASCADE,
+    bulk_operation_id BIGINT REFERENCES bulk_operations(id) ON DELETE CASCADE,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL DEFAULT 1,
+    scheduled_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMP,
+    outcome TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_jobs_queued ON jobs(priority DESC, scheduled_at) WHERE status = 'QUEUED';
+CREATE INDEX idx_jobs_running ON jobs(locked_until) WHERE status = 'RUNNING';
+CREATE INDEX idx_jobs_bulk_operation ON jobs(bulk_operation_id);
+
+-- At most one pending poll per server, however many nodes enqueue it
+CREATE UNIQUE INDEX uq_jobs_pending_poll ON jobs(server_id) WHERE job_type = 'POLL' AND status IN ('QUEUED', 'RUNNING');
+
+-- Deploy content is kept so queued targets survive a restart, in its own table so that
+-- reading and listing operations does not load it
+CREATE TABLE bulk_operation_contents (
+    bulk_operation_id BIGINT PRIMARY KEY REFERENCES bulk_operations(id) ON DELETE CASCADE,
+    content BYTEA NOT NULL
+);
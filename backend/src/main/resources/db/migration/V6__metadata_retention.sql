@@ -0,0 +1,37 @@
+-- Latest-snapshot lookups by server
+CREATE INDEX idx_metadata_server_captured ON server_metadata(server_id, captured_at DESC);
+
+-- Most recent snapshot per server, maintained on every poll
+CREATE TABLE server_metadata_latest (
+    server_id BIGINT PRIMARY KEY REFERENCES cognos_servers(id) ON DELETE CASCADE,
+    report_count INTEGER,
+    dashboard_count INTEGER,
+    data_module_count INTEGER,
+    captured_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO server_metadata_latest (server_id, report_count, dashboard_count, data_module_count, captured_at)
+SELECT DISTINCT ON (server_id) server_id, report_count, dashboard_count, data_module_count, captured_at
+FROM server_metadata
+WHERE server_id IS NOT NULL AND captured_at IS NOT NULL
+ORDER BY server_id, captured_at DESC;
+
+-- Daily and weekly aggregates of snapshots past the raw retention window
+CREATE TABLE server_metadata_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    server_id BIGINT NOT NULL REFERENCES cognos_servers(id) ON DELETE CASCADE,
+    granularity VARCHAR(10) NOT NULL CHECK (granularity IN ('DAY', 'WEEK')),
+    period_start TIMESTAMP NOT NULL,
+    sample_count INTEGER NOT NULL,
+    report_min INTEGER,
+    report_max INTEGER,
+    report_last INTEGER,
+    dashboard_min INTEGER,
+    dashboard_max INTEGER,
+    dashboard_last INTEGER,
+    data_module_min INTEGER,
+    data_module_max INTEGER,
+    data_module_last INTEGER,
+    last_captured_at TIMESTAMP NOT NULL,
+    UNIQUE (server_id, granularity, period_start)
+);
@@ -0,0 +1,28 @@
+-- Daily rollups are now maintained as snapshots are written, so they cover recent days too.
+-- Backfill them from the snapshots not yet compacted.
+INSERT INTO server_metadata_rollups AS r (server_id, granularity, period_start, sample_count,
+    report_min, report_max, report_last, dashboard_min, dashboard_max, dashboard_last,
+    data_module_min, data_module_max, data_module_last, last_captured_at)
+SELECT server_id, 'DAY', date_trunc('day', captured_at), COUNT(*),
+    MIN(report_count), MAX(report_count), (array_agg(report_count ORDER BY captured_at DESC))[1],
+    MIN(dashboard_count), MAX(dashboard_count), (array_agg(dashboard_count ORDER BY captured_at DESC))[1],
+    MIN(data_module_count), MAX(data_module_count), (array_agg(data_module_count ORDER BY captured_at DESC))[1],
+    MAX(captured_at)
+FROM server_metadata
+WHERE server_id IS NOT NULL AND captured_at IS NOT NULL
+GROUP BY server_id, date_trunc('day', captured_at)
+ON CONFLICT (server_id, granularity, period_start) DO UPDATE SET
+    sample_count = r.sample_count + EXCLUDED.sample_count,
+    report_min = LEAST(r.report_min, EXCLUDED.report_min),
+    report_max = GREATEST(r.report_max, EXCLUDED.report_max),
+    report_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at THEN EXCLUDED.report_last ELSE r.report_last END,
+    dashboard_min = LEAST(r.dashboard_min, EXCLUDED.dashboard_min),
+    dashboard_max = GREATEST(r.dashboard_max, EXCLUDED.dashboard_max),
+    dashboard_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at THEN EXCLUDED.dashboard_last ELSE r.dashboard_last END,
+    data_module_min = LEAST(r.data_module_min, EXCLUDED.data_module_min),
+    data_module_max = GREATEST(r.data_module_max, EXCLUDED.data_module_max),
+    data_module_last = CASE WHEN EXCLUDED.last_captured_at >= r.last_captured_at THEN EXCLUDED.data_module_last ELSE r.data_module_last END,
+    last_captured_at = GREATEST(r.last_captured_at, EXCLUDED.last_captured_at);
+
+-- Fleet-wide trend queries select by period across all servers
+CREATE INDEX idx_rollups_period ON server_metadata_rollups(period_start);
@@ -0,0 +1,17 @@
+-- Per-operation fan-out and rollout waves for bulk deploys
+ALTER TABLE bulk_operations ADD COLUMN max_concurrency INTEGER;
+ALTER TABLE bulk_operations ADD COLUMN canary_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE bulk_operations ADD COLUMN wave_percent INTEGER;
+ALTER TABLE bulk_operations ADD COLUMN max_failure_percent INTEGER;
+ALTER TABLE bulk_operations ADD COLUMN wave_count INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE bulk_operations ADD COLUMN current_wave INTEGER NOT NULL DEFAULT 0;
+
+-- Targets are queued in order; everything before next_target has a deploy job.
+-- Existing operations queued all their targets up front.
+ALTER TABLE bulk_operations ADD COLUMN next_target INTEGER NOT NULL DEFAULT 0;
+UPDATE bulk_operations SET next_target = cardinality(target_servers);
+
+-- An operation stops early when a wave exceeds its failure threshold
+ALTER TABLE bulk_operations DROP CONSTRAINT bulk_operations_status_check;
+ALTER TABLE bulk_operations ADD CONSTRAINT bulk_operations_status_check
+    CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'FAILED', 'HALTED'));
@@ -0,0 +1,6 @@
+-- Uploaded deploy content is kept as a file in the artifact directory; the row only references it.
+ALTER TABLE bulk_operations ADD COLUMN artifact_path TEXT;
+ALTER TABLE bulk_operations ADD COLUMN artifact_size BIGINT;
+ALTER TABLE bulk_operations ADD COLUMN artifact_sha256 VARCHAR(64);
+
+CREATE INDEX idx_bulk_operations_artifact ON bulk_operations(completed_at) WHERE artifact_path IS NOT NULL;
@@ -0,0 +1,132 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.repository.ArtifactRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArtifactStorageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ArtifactRepository artifactRepository;
+    private ArtifactStorageService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        artifactRepository = mock(ArtifactRepository.class);
+        storage = new ArtifactStorageService(artifactRepository);
+        ReflectionTestUtils.setField(storage, "directory", directory);
+        ReflectionTestUtils.setField(storage, "maxSize", DataSize.ofMegabytes(1));
+        storage.createDirectories();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void movesArtifactIntoStoreBeforeCommit() {
+        SpooledArtifact spooled = acquire(true);
+
+        assertThat(directory.resolve(spooled.getPath())).exists();
+        assertThat(stored(spooled)).doesNotExist();
+
+        beforeCommit();
+        afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        storage.discard(spooled);
+
+        assertThat(directory.resolve(spooled.getPath())).doesNotExist();
+        assertThat(stored(spooled)).hasContent("report");
+    }
+
+    @Test
+    void leavesNothingInStoreOnRollback() throws Exception {
+        SpooledArtifact spooled = acquire(true);
+
+        afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        storage.discard(spooled);
+
+        assertThat(directory.resolve(spooled.getPath())).doesNotExist();
+        assertThat(storedFiles()).isZero();
+    }
+
+    @Test
+    void failedMoveFailsTheCommit() throws Exception {
+        acquire(true);
+        // A file where the store's directory should be
+        Files.writeString(directory.resolve("sha256"), "not a directory");
+
+        assertThatThrownBy(this::beforeCommit).hasMessage("Failed to store deploy artifact");
+    }
+
+    @Test
+    void deletesAddedFileWhenCommitFailsAfterMove() throws Exception {
+        acquire(true);
+
+        beforeCommit();
+        afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(storedFiles()).isZero();
+    }
+
+    @Test
+    void keepsAlreadyStoredFileWhenCommitFailsAfterMove() {
+        SpooledArtifact spooled = acquire(false);
+
+        beforeCommit();
+        afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(stored(spooled)).hasContent("report");
+    }
+
+    private SpooledArtifact acquire(boolean inserted) {
+        when(artifactRepository.insertOrAcquire(anyString(), anyString(), anyLong())).thenReturn(inserted);
+        SpooledArtifact spooled = storage.spool("report".getBytes(StandardCharsets.UTF_8));
+        storage.acquire(spooled);
+        return spooled;
+    }
+
+    private Path stored(SpooledArtifact spooled) {
+        return directory.resolve("sha256").resolve(spooled.getSha256().substring(0, 2)).resolve(spooled.getSha256());
+    }
+
+    private long storedFiles() throws Exception {
+        try (var files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private void beforeCommit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+    }
+
+    private static void afterCompletion(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
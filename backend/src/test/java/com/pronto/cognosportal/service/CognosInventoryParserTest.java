@@ -0,0 +1,125 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.model.ContentInventory;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CognosInventoryParserTest {
+
+    private static final int ITEMS = 500_000;
+    private static final int CHUNK_SIZE = 1000;
+
+    // The items of the response take well over 100MB once parsed; streaming must not keep them
+    private static final long HEAP_CEILING = 32L * 1024 * 1024;
+
+    @Test
+    void streamsLargeResponseInBoundedMemory() throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger items = new AtomicInteger();
+        AtomicLong baseline = new AtomicLong();
+        AtomicLong maxGrowth = new AtomicLong();
+
+        Map<ContentInventory.ContentType, Integer> counts = CognosInventoryParser.parse(
+                new SyntheticInventory(ITEMS), CHUNK_SIZE, chunk -> {
+                    assertThat(chunk).hasSizeLessThanOrEqualTo(CHUNK_SIZE);
+                    items.addAndGet(chunk.size());
+                    int chunkNumber = chunks.incrementAndGet();
+                    if (chunkNumber == 1 || chunkNumber % 50 == 0) {
+                        System.gc();
+                        long used = memory.getHeapMemoryUsage().getUsed();
+                        if (chunkNumber == 1) {
+                            baseline.set(used);
+                        } else {
+                            maxGrowth.accumulateAndGet(used - baseline.get(), Math::max);
+                        }
+                    }
+                });
+
+        assertThat(items.get()).isEqualTo(ITEMS);
+        assertThat(chunks.get()).isEqualTo(ITEMS / CHUNK_SIZE);
+        assertThat(counts.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(ITEMS);
+        assertThat(counts.get(ContentInventory.ContentType.REPORT)).isEqualTo(ITEMS / 2);
+        assertThat(maxGrowth.get()).isLessThan(HEAP_CEILING);
+    }
+
+    /**
+     * A content response of the given number of items, half reports and half dashboards,
+     * generated as it is read so the test holds no more of it than the parser asks for.
+     */
+    private static class SyntheticInventory extends InputStream {
+
+        private final int items;
+        private int next;
+        private int section;
+        private byte[] buffer = "{\"reports\":[".getBytes(StandardCharsets.UTF_8);
+        private int position;
+
+        SyntheticInventory(int items) {
+            this.items = items;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() {
+            while (position == buffer.length) {
+                String next = nextPart();
+                if (next == null) {
+                    return false;
+                }
+                buffer = next.getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return true;
+        }
+
+        private String nextPart() {
+            int half = items / 2;
+            if (section == 0 && next == half) {
+                section = 1;
+                return "],\"dashboards\":[";
+            }
+            if (next == items) {
+                if (section == 2) {
+                    return null;
+                }
+                section = 2;
+                return "]}";
+            }
+            int i = next++;
+            String separator = i == 0 || i == half ? "" : ",";
+            return separator + "{\"id\":" + i + ",\"name\":\"Content item " + i
+                    + "\",\"version\":\"1." + (i % 10) + "\",\"path\":\"/content/folder-" + (i % 100)
+                    + "/item-" + i + "\",\"owner\":{\"name\":\"admin\"},\"tags\":[\"a\",\"b\"]}";
+        }
+    }
+}
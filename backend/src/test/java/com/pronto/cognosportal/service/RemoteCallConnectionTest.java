@@ -0,0 +1,269 @@
+package com.pronto.cognosportal.service;
+
+import com.pronto.cognosportal.dto.CognosContentItem;
+import com.pronto.cognosportal.exception.CircuitOpenException;
+import com.pronto.cognosportal.model.BulkOperation;
+import com.pronto.cognosportal.model.CognosServer;
+import com.pronto.cognosportal.model.ContentInventory;
+import com.pronto.cognosportal.model.Job;
+import com.pronto.cognosportal.repository.*;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Polls and deploy targets must not hold a pooled connection while Cognos is being called,
+ * so a fleet of slow servers cannot exhaust the pool. The Cognos calls are stubbed to look
+ * at the pool while they "run"; the schema is created by Hibernate on H2, and the few
+ * PostgreSQL-only statements on the way are stubbed out.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:remote-calls;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "polling.inventory.streaming=true",
+        "logging.level.org.hibernate.tool.schema=error" // PostgreSQL-only column types of unrelated tables
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PollingService.class, InventorySyncService.class, BulkOperationService.class, PortalMetrics.class,
+        RemoteCallConnectionTest.Config.class})
+class RemoteCallConnectionTest {
+
+    private static final int ITEMS = 2500;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private PollingService pollingService;
+
+    @Autowired
+    private InventorySyncService inventorySyncService;
+
+    @Autowired
+    private BulkOperationService bulkOperationService;
+
+    @Autowired
+    private CognosServerRepository serverRepository;
+
+    @Autowired
+    private StagedContentInventoryRepository stagedInventoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @SpyBean
+    private ContentInventoryRepository contentInventoryRepository;
+
+    @MockBean
+    private CognosApiService cognosApiService;
+
+    @MockBean
+    private CognosCircuitBreaker circuitBreaker;
+
+    @MockBean
+    private MetadataRetentionService metadataRetentionService;
+
+    @MockBean
+    private ChangeHistoryRepository changeHistoryRepository;
+
+    @MockBean
+    private InventoryValidatorCache inventoryValidatorCache;
+
+    @MockBean
+    private PollIntervalPolicy pollIntervalPolicy;
+
+    @MockBean(name = "fleetPollExecutor")
+    private Executor fleetPollExecutor;
+
+    @MockBean
+    private BulkOperationRepository bulkOperationRepository;
+
+    @MockBean
+    private BulkOperationDetailRepository detailRepository;
+
+    @MockBean
+    private AuthService authService;
+
+    @MockBean
+    private AuditService auditService;
+
+    @MockBean
+    private JobQueueService jobQueueService;
+
+    @MockBean
+    private ArtifactStorageService artifactStorageService;
+
+    private final List<Integer> activeDuringCall = new ArrayList<>();
+    private final List<Boolean> transactionDuringCall = new ArrayList<>();
+
+    private CognosServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = serverRepository.save(CognosServer.builder()
+                .serverName("slow-" + System.nanoTime())
+                .baseUrl("http://cognos.invalid")
+                .apiKeyEncrypted("-")
+                .prontoDebtorCode("TEST")
+                .prontoXiVersion("760")
+                .build());
+        when(circuitBreaker.allowsRequest(any())).thenReturn(true);
+
+        // H2 has no UPDATE ... FROM or ON CONFLICT
+        doReturn(0).when(contentInventoryRepository).confirmDeployedArtifacts(anyLong());
+        doReturn(0).when(contentInventoryRepository).forgetChangedArtifacts(anyLong());
+        doReturn(0).when(contentInventoryRepository).recordDeployedArtifact(anyLong(), any(), any(), any());
+        doReturn(0).when(contentInventoryRepository).forgetDeployedArtifact(anyLong(), any());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {InventorySyncService.MODE_DELTA, InventorySyncService.MODE_FULL})
+    void pollHoldsNoConnectionWhileStreamingInventory(String syncMode) {
+        setSyncMode(syncMode);
+        when(cognosApiService.streamContentInventory(any(), anyInt(), any())).thenAnswer(invocation -> {
+            int chunkSize = invocation.getArgument(1);
+            Consumer<List<CognosContentItem>> consumer = invocation.getArgument(2);
+            List<CognosContentItem> chunk = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                chunk.add(item(i));
+                if (chunk.size() == chunkSize || i == ITEMS - 1) {
+                    slowRemoteCall();
+                    consumer.accept(chunk);
+                    chunk = new ArrayList<>();
+                }
+            }
+            slowRemoteCall();
+            return new InventoryFetchResult(false,
+                    Map.of(ContentInventory.ContentType.REPORT, ITEMS), null, null);
+        });
+
+        CognosServer polled = pollingService.pollServer(server);
+
+        assertThat(polled.getPollStatus()).isEqualTo(CognosServer.PollStatus.SUCCESS);
+        assertThat(transactionDuringCall).isNotEmpty().containsOnly(false);
+        assertThat(activeDuringCall).isNotEmpty().containsOnly(0);
+        assertThat(contentInventoryRepository.countByServerId(server.getId())).isEqualTo(ITEMS);
+        assertThat(stagedInventoryRepository.count()).isZero();
+    }
+
+    @Test
+    void failedFullSyncDropsStagedRowsAndKeepsInventory() {
+        setSyncMode(InventorySyncService.MODE_FULL);
+        when(cognosApiService.streamContentInventory(any(), anyInt(), any())).thenAnswer(invocation -> {
+            Consumer<List<CognosContentItem>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(item(0), item(1)));
+            throw new RuntimeException("Connection reset");
+        });
+
+        CognosServer polled = pollingService.pollServer(server);
+
+        assertThat(polled.getPollStatus()).isEqualTo(CognosServer.PollStatus.FAILED);
+        assertThat(contentInventoryRepository.countByServerId(server.getId())).isZero();
+        assertThat(stagedInventoryRepository.count()).isZero();
+    }
+
+    @Test
+    void pollOfServerWithOpenCircuitIsSkippedNotSucceeded() {
+        server.setPollStatus(CognosServer.PollStatus.SUCCESS);
+        server = serverRepository.save(server);
+        when(circuitBreaker.allowsRequest(server.getId())).thenReturn(false);
+
+        assertThatThrownBy(() -> pollingService.pollServer(server)).isInstanceOf(CircuitOpenException.class);
+        verify(cognosApiService, never()).streamContentInventory(any(), anyInt(), any());
+        verify(pollIntervalPolicy).recordFailure(any(), any());
+    }
+
+    @Test
+    void deployHoldsNoConnectionWhileUploading(@TempDir Path directory) throws Exception {
+        Path artifact = Files.write(directory.resolve("artifact"), new byte[]{1, 2, 3});
+        String sha256 = "a".repeat(64);
+        BulkOperation operation = BulkOperation.builder()
+                .id(1L)
+                .operationType("DEPLOY")
+                .contentPath("/content/report")
+                .artifactSha256(sha256)
+                .artifactSize(3L)
+                .targetServers(new Long[]{server.getId()})
+                .skippedCount(0)
+                .build();
+        BulkOperationRepository.Progress progress = mock(BulkOperationRepository.Progress.class);
+        when(progress.getSuccessCount()).thenReturn(1);
+        when(progress.getFailureCount()).thenReturn(0);
+        when(progress.getStatus()).thenReturn(BulkOperation.OperationStatus.COMPLETED.name());
+        when(bulkOperationRepository.findById(operation.getId())).thenReturn(Optional.of(operation));
+        when(bulkOperationRepository.findProgress(operation.getId())).thenReturn(progress);
+        when(artifactStorageService.open(sha256, 3L)).thenReturn(artifact);
+        doAnswer(invocation -> {
+            slowRemoteCall();
+            return null;
+        }).when(cognosApiService).deployContent(any(), eq(artifact), eq("/content/report"));
+
+        Job job = new Job();
+        job.setServerId(server.getId());
+        job.setBulkOperationId(operation.getId());
+        bulkOperationService.deployTarget(job);
+
+        assertThat(transactionDuringCall).containsExactly(false);
+        assertThat(activeDuringCall).containsExactly(0);
+        verify(cognosApiService).deployContent(any(), eq(artifact), eq("/content/report"));
+        verify(bulkOperationRepository).incrementSuccessCount(operation.getId());
+    }
+
+    private void setSyncMode(String syncMode) {
+        InventorySyncService target = AopTestUtils.getTargetObject(inventorySyncService);
+        ReflectionTestUtils.setField(target, "syncMode", syncMode);
+    }
+
+    private void slowRemoteCall() throws Exception {
+        transactionDuringCall.add(TransactionSynchronizationManager.isActualTransactionActive());
+        activeDuringCall.add(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections());
+        Thread.sleep(20);
+    }
+
+    private static CognosContentItem item(int i) {
+        return new CognosContentItem(ContentInventory.ContentType.REPORT, "Report " + i, "1.0",
+                "/content/folder/report-" + i);
+    }
+}
@@ -6,6 +6,25 @@ const bulkOperationService = {
     return response.data;
   },
 
+  // Uploads the artifact as a file instead of Base64 inside the JSON body
+  uploadBulkDeploy: async (deployData, file) => {
+    const formData = new FormData();
+    formData.append('request', new Blob([JSON.stringify(deployData)], { type: 'application/json' }));
+    formData.append('file', file);
+    const response = await api.post('/bulk-operations/deploy', formData, {
+      headers: { 'Content-Type': 'multipart/form-data' },
+    });
+    return response.data;
+  },
+
+  // Deploys the stored artifact of an operation again; no upload needed
+  rerunBulkDeploy: async (id, skipSucceeded = false) => {
+    const response = await api.post(`/bulk-operations/${id}/rerun`, null, {
+      params: { skipSucceeded },
+    });
+    return response.data;
+  },
+
   getAllOperations: async () => {
     const response = await api.get('/bulk-operations');
     return response.data;
@@ -10,6 +10,7 @@ export const OPERATION_STATUS_COLORS = {
   IN_PROGRESS: 'blue',
   COMPLETED: 'green',
   FAILED: 'red',
+  HALTED: 'orange',
 };
 
 export const USER_ROLES = {
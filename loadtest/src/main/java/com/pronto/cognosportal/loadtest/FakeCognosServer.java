@@ -0,0 +1,259 @@
+package com.pronto.cognosportal.loadtest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a fleet of Cognos servers on one port. Server n lives under /s/n, so its
+ * base URL is http://host:port/s/n, and answers the endpoints the portal calls:
+ * <ul>
+ *     <li>GET /api/v1/configuration (connection test)</li>
+ *     <li>GET /api/v1/content, optionally paged with offset/limit, honouring If-None-Match</li>
+ *     <li>POST /api/v1/content/deploy?path=..., which changes the server's inventory</li>
+ * </ul>
+ * Each server has its own inventory size. Responses are delayed by the configured latency,
+ * slow servers by the slow latency, a fraction of requests fail with 500, and dead servers
+ * drop every connection without answering.
+ */
+public class FakeCognosServer implements AutoCloseable {
+
+    private static final String[] SECTIONS = {"reports", "dashboards", "dataModules"};
+
+    private final FleetProfile profile;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Content deployed to each server, by server number: path to revision.
+     */
+    private final Map<Integer, Map<String, Integer>> deployed = new ConcurrentHashMap<>();
+    private final AtomicInteger revisions = new AtomicInteger();
+
+    private final AtomicLong inventoryRequests = new AtomicLong();
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+    private final AtomicLong deployRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong droppedRequests = new AtomicLong();
+    private final AtomicLong itemsServed = new AtomicLong();
+
+    public FakeCognosServer(FleetProfile profile, int port) throws IOException {
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-cognos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/s/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String baseUrl(String host, int number) {
+        return "http://" + host + ":" + getPort() + "/s/" + number;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("inventoryRequests", inventoryRequests.get());
+        stats.put("notModifiedResponses", notModifiedResponses.get());
+        stats.put("deployRequests", deployRequests.get());
+        stats.put("failedRequests", failedRequests.get());
+        stats.put("droppedRequests", droppedRequests.get());
+        stats.put("itemsServed", itemsServed.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            URI uri = exchange.getRequestURI();
+            String[] parts = uri.getPath().split("/", 4);
+            int number;
+            try {
+                number = Integer.parseInt(parts[2]);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (number < 0 || number >= profile.servers()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            FleetProfile.Server simulated = profile.server(number);
+            if (simulated.dead()) {
+                // Close without a response, like a host that accepts and then goes away
+                droppedRequests.incrementAndGet();
+                return;
+            }
+
+            String path = parts.length > 3 ? "/" + parts[3] : "/";
+            boolean deploy = path.startsWith("/api/v1/content/deploy");
+            delay(simulated, deploy);
+
+            if (ThreadLocalRandom.current().nextDouble() < profile.errorRate()) {
+                failedRequests.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            Map<String, String> query = parseQuery(uri.getRawQuery());
+            if (deploy && "POST".equals(exchange.getRequestMethod())) {
+                handleDeploy(exchange, number, query);
+            } else if (path.startsWith("/api/v1/content")) {
+                handleInventory(exchange, simulated, query);
+            } else if (path.startsWith("/api/v1/configuration")) {
+                byte[] body = "{\"version\":\"12.0.0\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    private void handleInventory(HttpExchange exchange, FleetProfile.Server simulated,
+                                 Map<String, String> query) throws IOException {
+        inventoryRequests.incrementAndGet();
+        Map<String, Integer> deployedContent = deployed.getOrDefault(simulated.number(), Map.of());
+        int revision = deployedContent.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        String etag = "\"" + simulated.number() + "-" + deployedContent.size() + "-" + revision + "\"";
+
+        boolean paged = query.containsKey("limit");
+        if (!paged && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        int total = simulated.items() + deployedContent.size();
+        int offset = paged ? Integer.parseInt(query.getOrDefault("offset", "0")) : 0;
+        int limit = paged ? Integer.parseInt(query.get("limit")) : total;
+        int end = Math.min(total, offset + limit);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (!paged) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        String[] deployedPaths = deployedContent.keySet().toArray(String[]::new);
+        try (OutputStream out = exchange.getResponseBody();
+             JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            for (int s = 0; s < SECTIONS.length; s++) {
+                json.writeArrayFieldStart(SECTIONS[s]);
+                for (int i = offset; i < end; i++) {
+                    if (i < simulated.items()) {
+                        if (sectionOf(i) != s) {
+                            continue;
+                        }
+                        json.writeStartObject();
+                        json.writeStringField("name", SECTIONS[s] + " " + i);
+                        json.writeStringField("version", "1.0." + (i % 7));
+                        json.writeStringField("path", "/Content/" + SECTIONS[s] + "/" + i);
+                        json.writeEndObject();
+                    } else if (s == 0) {
+                        // Deployed content is listed as reports after the generated items
+                        String path = deployedPaths[i - simulated.items()];
+                        json.writeStartObject();
+                        json.writeStringField("name", path);
+                        json.writeStringField("version", "2.0." + deployedContent.get(path));
+                        json.writeStringField("path", path);
+                        json.writeEndObject();
+                    }
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+        itemsServed.addAndGet(Math.max(0, end - offset));
+    }
+
+    private void handleDeploy(HttpExchange exchange, int number, Map<String, String> query) throws IOException {
+        deployRequests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String path = query.getOrDefault("path", "/Deployed/unnamed");
+        deployed.computeIfAbsent(number, n -> new ConcurrentHashMap<>()).put(path, revisions.incrementAndGet());
+        exchange.sendResponseHeaders(201, -1);
+    }
+
+    /**
+     * Roughly 60% reports, 25% dashboards and 15% data modules.
+     */
+    private static int sectionOf(int item) {
+        int bucket = (item * 7) % 20;
+        return bucket < 12 ? 0 : bucket < 17 ? 1 : 2;
+    }
+
+    private void delay(FleetProfile.Server simulated, boolean deploy) {
+        long millis = profile.latencyMs();
+        if (profile.latencyJitterMs() > 0) {
+            // Exponential jitter: mostly fast, with a long tail
+            millis += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * profile.latencyJitterMs());
+        }
+        if (deploy) {
+            millis += profile.deployLatencyMs();
+        }
+        if (simulated.slow()) {
+            millis += profile.slowLatencyMs();
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,221 @@
+package com.pronto.cognosportal.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Drives a running portal backend against a simulated fleet: enrolls the simulated
+ * servers, then measures a poll-all run and a bulk deploy end to end through the REST API.
+ * The backend must run with cognos.api.demo-mode=false so it calls the simulator.
+ */
+final class FleetLoadDriver {
+
+    private static final Set<String> FINISHED_OPERATION_STATES = Set.of("COMPLETED", "FAILED");
+
+    private final String portalUrl;
+    private final String username;
+    private final String password;
+    private final int servers;
+    private final String namePrefix;
+    private final String[] xiVersions;
+    private final int enrollConcurrency;
+    private final int deploySizeKb;
+    private final Duration timeout;
+    private final boolean skipPoll;
+    private final boolean skipDeploy;
+    private final IntFunction<String> baseUrls;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String token;
+
+    FleetLoadDriver(Options options, IntFunction<String> baseUrls) {
+        this.portalUrl = options.get("portal-url", "http://localhost:8080");
+        this.username = options.get("username", "admin");
+        this.password = options.get("password", "admin123");
+        this.servers = options.getInt("servers", 1000);
+        this.namePrefix = options.get("name-prefix", "sim");
+        this.xiVersions = options.get("xi-versions", "760,770,780").split(",");
+        this.enrollConcurrency = options.getInt("enroll-concurrency", 20);
+        this.deploySizeKb = options.getInt("deploy-size-kb", 256);
+        this.timeout = Duration.ofMinutes(options.getLong("timeout-minutes", 60));
+        this.skipPoll = options.getBoolean("skip-poll", false);
+        this.skipDeploy = options.getBoolean("skip-deploy", false);
+        this.baseUrls = baseUrls;
+    }
+
+    void run() throws Exception {
+        login();
+        List<Long> serverIds = enrollServers();
+        if (!skipPoll) {
+            measurePollAll();
+        }
+        if (!skipDeploy) {
+            measureBulkDeploy(serverIds);
+        }
+    }
+
+    private void login() throws IOException, InterruptedException {
+        ObjectNode body = mapper.createObjectNode().put("username", username).put("password", password);
+        token = send("POST", "/api/auth/login", body).get("token").asText();
+    }
+
+    /**
+     * Enrolls the simulated servers that are not enrolled yet and returns the ids of all of them.
+     */
+    private List<Long> enrollServers() throws Exception {
+        LatencyStats latency = new LatencyStats();
+        AtomicInteger enrolled = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(enrollConcurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < servers; i++) {
+                int number = i;
+                futures.add(pool.submit(() -> {
+                    ObjectNode body = mapper.createObjectNode()
+                            .put("serverName", namePrefix + "-" + number)
+                            .put("baseUrl", baseUrls.apply(number))
+                            .put("apiKey", "sim-key-" + number)
+                            .put("prontoDebtorCode", "SIM" + number)
+                            .put("prontoXiVersion", xiVersions[number % xiVersions.length]);
+                    long requestStart = System.nanoTime();
+                    HttpResponse<String> response = exchange("POST", "/api/servers", body);
+                    if (response.statusCode() == 201) {
+                        latency.add(millisSince(requestStart));
+                        enrolled.incrementAndGet();
+                    } else if (!response.body().contains("already exists")) {
+                        throw new IllegalStateException("Enrolling " + number + " failed: " + response.body());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode server : send("GET", "/api/servers", null)) {
+            String name = server.path("serverName").asText();
+            if (name.startsWith(namePrefix + "-")) {
+                ids.add(server.get("id").asLong());
+            }
+        }
+        report("Enrollment", "%d new servers (%d simulated servers enrolled) in %d ms, latency %s",
+                enrolled.get(), ids.size(), millisSince(start), latency.summary());
+        return ids;
+    }
+
+    private void measurePollAll() throws Exception {
+        long start = System.nanoTime();
+        JsonNode run = send("POST", "/api/servers/poll-all", null);
+        String runId = run.get("runId").asText();
+        while (!"COMPLETED".equals(run.path("status").asText())) {
+            checkTimeout(start, "poll-all run " + runId);
+            Thread.sleep(1000);
+            run = send("GET", "/api/servers/poll-runs/" + runId, null);
+        }
+        long wallMs = millisSince(start);
+
+        LatencyStats latency = new LatencyStats();
+        run.path("results").forEach(result -> latency.add(result.path("durationMs").asLong()));
+        int total = run.path("totalServers").asInt();
+        report("Poll-all", "%d servers in %d ms (%.1f servers/s, max concurrency %d), success %d, failed %d",
+                total, wallMs, total * 1000.0 / Math.max(1, wallMs), run.path("maxConcurrency").asInt(),
+                run.path("successCount").asInt(), run.path("failureCount").asInt());
+        report("Poll-all", "per-server poll latency %s", latency.summary());
+    }
+
+    private void measureBulkDeploy(List<Long> serverIds) throws Exception {
+        byte[] content = new byte[deploySizeKb * 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+        ObjectNode body = mapper.createObjectNode()
+                .put("operationType", "DEPLOY")
+                .put("operationName", "Load test " + LocalDateTime.now())
+                .put("contentPath", "/Deployed/loadtest-" + System.currentTimeMillis())
+                .put("contentFile", Base64.getEncoder().encodeToString(content));
+        serverIds.forEach(body.putArray("targetServers")::add);
+
+        long start = System.nanoTime();
+        long operationId = send("POST", "/api/bulk-operations/deploy", body).get("operationId").asLong();
+        JsonNode operation = send("GET", "/api/bulk-operations/" + operationId, null);
+        while (!FINISHED_OPERATION_STATES.contains(operation.path("status").asText())) {
+            checkTimeout(start, "bulk operation " + operationId);
+            Thread.sleep(1000);
+            operation = send("GET", "/api/bulk-operations/" + operationId, null);
+        }
+        long wallMs = millisSince(start);
+
+        // Time from operation creation until each target finished
+        LatencyStats completion = new LatencyStats();
+        LocalDateTime createdAt = LocalDateTime.parse(operation.get("createdAt").asText());
+        for (JsonNode detail : send("GET", "/api/bulk-operations/" + operationId + "/details", null)) {
+            LocalDateTime executedAt = LocalDateTime.parse(detail.get("executedAt").asText());
+            completion.add(Duration.between(createdAt, executedAt).toMillis());
+        }
+        report("Bulk deploy", "%d targets of %d KB in %d ms (%.1f targets/s), success %d, failed %d",
+                serverIds.size(), deploySizeKb, wallMs, serverIds.size() * 1000.0 / Math.max(1, wallMs),
+                operation.path("successCount").asInt(), operation.path("failureCount").asInt());
+        report("Bulk deploy", "target completion after start %s", completion.summary());
+    }
+
+    private JsonNode send(String method, String path, JsonNode body) throws IOException, InterruptedException {
+        HttpResponse<String> response = exchange(method, path, body);
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(method + " " + path + " failed with " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return mapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> exchange(String method, String path, JsonNode body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(portalUrl + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body))
+                        : HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void checkTimeout(long startNanos, String what) {
+        if (System.nanoTime() - startNanos > timeout.toNanos()) {
+            throw new IllegalStateException("Timed out waiting for " + what);
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static void report(String phase, String format, Object... args) {
+        System.out.printf("[%s] %s%n", phase, String.format(format, args));
+    }
+}
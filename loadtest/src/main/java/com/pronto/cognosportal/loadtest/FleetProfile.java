@@ -0,0 +1,50 @@
+package com.pronto.cognosportal.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Shape of the simulated fleet. Every server's behaviour is derived from the seed and its
+ * number, so the same options always produce the same fleet.
+ */
+record FleetProfile(
+        int servers,
+        int minItems,
+        int maxItems,
+        long latencyMs,
+        long latencyJitterMs,
+        double errorRate,
+        double slowRate,
+        long slowLatencyMs,
+        double deadRate,
+        long deployLatencyMs,
+        long seed) {
+
+    static FleetProfile from(Options options) {
+        return new FleetProfile(
+                options.getInt("servers", 1000),
+                options.getInt("min-items", 50),
+                options.getInt("max-items", 5000),
+                options.getLong("latency-ms", 50),
+                options.getLong("latency-jitter-ms", 150),
+                options.getDouble("error-rate", 0.01),
+                options.getDouble("slow-rate", 0.02),
+                options.getLong("slow-latency-ms", 5000),
+                options.getDouble("dead-rate", 0.005),
+                options.getLong("deploy-latency-ms", 200),
+                options.getLong("seed", 42));
+    }
+
+    /**
+     * Fixed traits of one simulated server.
+     */
+    record Server(int number, int items, boolean slow, boolean dead) {
+    }
+
+    Server server(int number) {
+        SplittableRandom random = new SplittableRandom(seed * 31 + number);
+        int items = minItems + (maxItems > minItems ? random.nextInt(maxItems - minItems + 1) : 0);
+        boolean dead = random.nextDouble() < deadRate;
+        boolean slow = !dead && random.nextDouble() < slowRate;
+        return new Server(number, items, slow, dead);
+    }
+}
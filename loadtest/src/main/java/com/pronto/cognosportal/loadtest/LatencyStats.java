@@ -0,0 +1,32 @@
+package com.pronto.cognosportal.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects durations in milliseconds and summarizes them as percentiles.
+ */
+final class LatencyStats {
+
+    private final List<Long> samples = new ArrayList<>();
+
+    synchronized void add(long millis) {
+        samples.add(millis);
+    }
+
+    synchronized String summary() {
+        if (samples.isEmpty()) {
+            return "no samples";
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        return String.format("n=%d p50=%d ms p90=%d ms p99=%d ms max=%d ms", sorted.size(),
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted.get(sorted.size() - 1));
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.pronto.cognosportal.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Entry point. Usage: LoadTest [simulate|drive|run] [--option=value ...]
+ * <ul>
+ *     <li>simulate: only run the simulated fleet, until killed</li>
+ *     <li>drive: drive the portal against a simulator started elsewhere (--simulator-url)</li>
+ *     <li>run (default): start the simulator in this process and drive the portal against it</li>
+ * </ul>
+ * See README.md for the options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 && !args[0].startsWith("--") ? args[0] : "run";
+        Options options = new Options(args);
+        FleetProfile profile = FleetProfile.from(options);
+
+        switch (mode) {
+            case "simulate" -> {
+                FakeCognosServer simulator = new FakeCognosServer(profile, options.getInt("port", 9090));
+                simulator.start();
+                System.out.printf("Simulating %d Cognos servers at http://localhost:%d/s/<0..%d>%n",
+                        profile.servers(), simulator.getPort(), profile.servers() - 1);
+                Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                        System.out.println("Simulator stats: " + simulator.getStats())));
+                new CountDownLatch(1).await();
+            }
+            case "drive" -> {
+                String simulatorUrl = options.get("simulator-url", "http://localhost:9090");
+                new FleetLoadDriver(options, number -> simulatorUrl + "/s/" + number).run();
+            }
+            case "run" -> {
+                try (FakeCognosServer simulator = new FakeCognosServer(profile, options.getInt("port", 9090))) {
+                    simulator.start();
+                    String host = options.get("simulator-host", "localhost");
+                    new FleetLoadDriver(options, number -> simulator.baseUrl(host, number)).run();
+                    System.out.println("Simulator stats: " + simulator.getStats());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", expected simulate, drive or run");
+        }
+    }
+}